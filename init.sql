@@ -1,2 +1,97 @@
 -- Enable pgvector extension
-CREATE EXTENSION IF NOT EXISTS vector; 
\ No newline at end of file
+CREATE EXTENSION IF NOT EXISTS vector;
+
+-- Knowledge chunks with a native vector column. The dimension must match
+-- KnowledgeChunk.EMBEDDING_DIMENSION and the embedding model in use.
+CREATE TABLE IF NOT EXISTS knowledge_chunk (
+    id BIGSERIAL PRIMARY KEY,
+    chunk_text TEXT,
+    embedding vector(768),
+    source_id VARCHAR(255),
+    source_type VARCHAR(255),
+    metadata_json TEXT,
+    created_at TIMESTAMP
+);
+
+-- Migrate databases created before the vector column, where embeddings were
+-- stored as comma-separated TEXT. Safe to re-run: it only fires on a TEXT column.
+DO $$
+BEGIN
+    IF EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_name = 'knowledge_chunk' AND column_name = 'embedding' AND data_type = 'text'
+    ) THEN
+        ALTER TABLE knowledge_chunk
+            ALTER COLUMN embedding TYPE vector(768)
+            USING CAST('[' || embedding || ']' AS vector);
+    END IF;
+END $$;
+
+-- KnowledgeChunk uses a pooled sequence generator (allocationSize = 50) so inserts can be
+-- JDBC-batched; the sequence increment has to match
+ALTER SEQUENCE knowledge_chunk_id_seq INCREMENT BY 50;
+
+-- Approximate nearest-neighbour index for cosine distance (<=>) over the research-paper partition, used
+-- by KnowledgeChunkRepository.findNearestPaperChunks when retrieval.mode=database. Video transcripts are
+-- searched one video at a time through knowledge_chunk_source_id_idx, so they stay out of the graph.
+DROP INDEX IF EXISTS knowledge_chunk_embedding_hnsw_idx;
+CREATE INDEX IF NOT EXISTS knowledge_chunk_paper_embedding_hnsw_idx
+    ON knowledge_chunk USING hnsw (embedding vector_cosine_ops)
+    WHERE source_type = 'RESEARCH_PAPER';
+
+-- Persistent tier of the embedding cache (embedding.cache.persistent.enabled),
+-- keyed by SHA-256 of model id + input text
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    model_id VARCHAR(255),
+    embedding vector,
+    created_at TIMESTAMP
+);
+
+-- Asynchronous analysis jobs; finished results live in analysis_result under video_id
+CREATE TABLE IF NOT EXISTS analysis_job (
+    id VARCHAR(36) PRIMARY KEY,
+    video_url VARCHAR(255),
+    video_id VARCHAR(255),
+    analysis_mode VARCHAR(255),
+    bulk_run_id VARCHAR(36),
+    status VARCHAR(255),
+    error TEXT,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS analysis_job_status_idx ON analysis_job (status);
+
+-- Playlists and channels submitted for bulk analysis; each listed video is an analysis_job with bulk_run_id set
+CREATE TABLE IF NOT EXISTS bulk_analysis_run (
+    id VARCHAR(36) PRIMARY KEY,
+    source_url VARCHAR(1024),
+    analysis_mode VARCHAR(255),
+    status VARCHAR(255),
+    video_count INTEGER,
+    error TEXT,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+-- Papers already ingested, keyed by path; size and mtime let unchanged files skip
+-- without hashing, content_hash detects renames and edits
+CREATE TABLE IF NOT EXISTS paper_manifest (
+    path VARCHAR(1024) PRIMARY KEY,
+    content_hash VARCHAR(64),
+    size_bytes BIGINT,
+    last_modified BIGINT,
+    ingested_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS knowledge_chunk_source_id_idx ON knowledge_chunk (source_id);
+
+-- Precompressed copy and ETag of each stored analysis (AnalysisResultBody), for databases where
+-- analysis_result predates them
+ALTER TABLE IF EXISTS analysis_result ADD COLUMN IF NOT EXISTS analysis_gzip BYTEA;
+ALTER TABLE IF EXISTS analysis_result ADD COLUMN IF NOT EXISTS etag VARCHAR(64);
+
+-- Bulk run of each job, for databases where analysis_job predates bulk analysis
+ALTER TABLE IF EXISTS analysis_job ADD COLUMN IF NOT EXISTS bulk_run_id VARCHAR(36);
+CREATE INDEX IF NOT EXISTS analysis_job_bulk_run_id_idx ON analysis_job (bulk_run_id);
@@ -0,0 +1,69 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Diffs two JMH JSON reports (e.g. target/jmh-1.0.json and target/jmh-1.1.json), matching runs by benchmark
+ * and parameters. A change is only flagged when the score intervals don't overlap, so noise isn't reported
+ * as a regression. Lower is better for every benchmark here (average time).
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(Path.of(args[0]));
+        Map<String, JsonNode> candidate = load(Path.of(args[1]));
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue().get("primaryMetric");
+            String unit = after.get("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-80s %14s %14.3f %9s%n", entry.getKey(), "-", after.get("score").asDouble(), "new");
+                continue;
+            }
+            before = before.get("primaryMetric");
+            double oldScore = before.get("score").asDouble();
+            double newScore = after.get("score").asDouble();
+            double change = (newScore - oldScore) / oldScore * 100.0;
+            String verdict = "";
+            if (after.get("scoreConfidence").get(0).asDouble() > before.get("scoreConfidence").get(1).asDouble()) {
+                verdict = "  SLOWER";
+                regressions++;
+            } else if (after.get("scoreConfidence").get(1).asDouble() < before.get("scoreConfidence").get(0).asDouble()) {
+                verdict = "  faster";
+            }
+            System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), oldScore, newScore, change, unit, verdict);
+        }
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> load(Path report) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(report.toFile())) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText().replace("com.fitanalysis.server.services.", ""));
+            JsonNode params = run.get("params");
+            if (params != null) {
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            runs.put(key.toString(), run);
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,105 @@
+package com.fitanalysis.server.services;
+
+import java.util.SplittableRandom;
+
+/** Deterministic synthetic inputs shared by the benchmarks. */
+final class BenchmarkData {
+
+    private static final String[] WORDS = (
+        "so today we are going to look at how many sets per week you need for muscle growth and the research "
+        + "on training volume suggests that more is better up to a point protein intake of around 1.6 grams per "
+        + "kilogram supports hypertrophy while sleep and recovery matter as much as the program itself").split(" ");
+
+    /** A reply in the shape Gemini gives for the analysis prompt, fenced the way it usually is. */
+    static final String GEMINI_RESPONSE = "```json\n{\n"
+        + "  \"video_title\": \"Full Body Hypertrophy Workout\",\n"
+        + "  \"channel\": \"Evidence Based Lifting\",\n"
+        + "  \"good_points\": [\"Trains each muscle group twice a week\", \"Uses progressive overload on the main lifts\", "
+        + "\"Keeps most sets within 1-3 reps of failure\", \"Includes both compound and isolation exercises\"],\n"
+        + "  \"bad_points\": [\"Rest periods under 60 seconds may reduce volume on compound lifts\", "
+        + "\"No direct hamstring curl work\", \"Weekly set count for chest is below 10\"],\n"
+        + "  \"conclusion\": \"A sound program for intermediate lifters that would benefit from longer rest periods and "
+        + "a little more chest and hamstring volume.\",\n"
+        + "  \"actual_workout\": \"Squat 3x8, bench press 3x8, barbell row 3x10, Romanian deadlift 3x10, overhead press "
+        + "3x10, lateral raise 3x15, curl 2x12, triceps pushdown 2x12\",\n"
+        + "  \"scientific_backing\": \"Consistent with meta-analyses on training frequency and volume (Schoenfeld et al. "
+        + "2016, 2017); rest intervals shorter than recommended by Grgic et al. 2017.\"\n"
+        + "}\n```\n";
+
+    private BenchmarkData() {}
+
+    /**
+     * A vector from one of 64 fixed clusters plus noise, which is closer to real embeddings than uniform
+     * noise (and what the HNSW recall numbers assume). Successive calls on one random give distinct vectors.
+     */
+    static float[] vector(SplittableRandom random, int dimension) {
+        SplittableRandom centroid = new SplittableRandom(random.nextInt(64));
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) (centroid.nextDouble(-1.0, 1.0) + 0.7 * random.nextDouble(-1.0, 1.0));
+        }
+        return vector;
+    }
+
+    /**
+     * A WebVTT file with {@code cues} cues as yt-dlp writes them: manual subtitles, or YouTube auto-captions
+     * with inline word timings where each cue repeats the previous line.
+     */
+    static String vtt(int cues, boolean autoCaptions) {
+        SplittableRandom random = new SplittableRandom(7);
+        StringBuilder vtt = new StringBuilder("WEBVTT\nKind: captions\nLanguage: en\n\n");
+        String previous = "";
+        long millis = 0;
+        for (int cue = 1; cue <= cues; cue++) {
+            long end = millis + 1500 + random.nextInt(2000);
+            StringBuilder line = new StringBuilder();
+            int words = 4 + random.nextInt(6);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) line.append(' ');
+                line.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            if (autoCaptions) {
+                vtt.append(timestamp(millis)).append(" --> ").append(timestamp(end)).append(" align:start position:0%\n");
+                vtt.append(previous.isEmpty() ? " " : previous).append('\n');
+                String[] parts = line.toString().split(" ");
+                long wordMillis = millis;
+                vtt.append(parts[0]);
+                for (int w = 1; w < parts.length; w++) {
+                    wordMillis += 250;
+                    vtt.append('<').append(timestamp(wordMillis)).append("><c> ").append(parts[w]).append("</c>");
+                }
+                vtt.append("\n\n");
+                previous = line.toString();
+            } else {
+                vtt.append(cue).append('\n');
+                vtt.append(timestamp(millis)).append(" --> ").append(timestamp(end)).append('\n');
+                vtt.append(line).append("\n\n");
+            }
+            millis = end;
+        }
+        return vtt.toString();
+    }
+
+    private static String timestamp(long millis) {
+        return String.format("%02d:%02d:%02d.%03d", millis / 3_600_000, millis / 60_000 % 60, millis / 1000 % 60, millis % 1000);
+    }
+
+    /** Roughly {@code chars} characters of transcript-like text, with or without sentence punctuation. */
+    static String transcript(int chars, boolean punctuated) {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder(chars + 64);
+        int wordsInSentence = 0;
+        while (text.length() < chars) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(wordsInSentence == 0 && punctuated ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            wordsInSentence++;
+            if (punctuated && wordsInSentence > 8 && random.nextInt(6) == 0) {
+                text.append(random.nextInt(10) == 0 ? "? " : ". ");
+                wordsInSentence = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+}
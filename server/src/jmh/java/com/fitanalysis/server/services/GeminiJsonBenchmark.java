@@ -0,0 +1,56 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handling an analysis reply: extractJsonFromGeminiResponse on its own, the extract-then-readValue pair
+ * callAnalysisLlm runs (which parses the JSON twice and pretty-prints it in between), and stripping the
+ * code fence before a single readValue as the alternative.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiJsonBenchmark {
+
+    private final AnalysisOrchestrationService orchestration = new AnalysisOrchestrationService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String response;
+
+    @Setup
+    public void setUp() {
+        response = new StubEmbeddingService().generateText("analysis prompt");
+    }
+
+    @Benchmark
+    public String extractJson() {
+        return orchestration.extractJsonFromGeminiResponse(response);
+    }
+
+    @Benchmark
+    public Map<?, ?> extractThenReadMap() throws Exception {
+        return objectMapper.readValue(orchestration.extractJsonFromGeminiResponse(response), Map.class);
+    }
+
+    @Benchmark
+    public Map<?, ?> stripFenceThenReadMap() throws Exception {
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        return objectMapper.readValue(response.substring(start, end + 1), Map.class);
+    }
+}
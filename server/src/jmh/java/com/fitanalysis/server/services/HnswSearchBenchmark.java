@@ -0,0 +1,52 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 retrieval against the HNSW index with the default retrieval.hnsw.* settings. Building the graph
+ * dominates setup time, so this stops at 100k vectors; compare with VectorSearchBenchmark at the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HnswSearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private HnswVectorIndex index;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new HnswVectorIndex(16, 200, 64);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int id = 0; id < size; id++) {
+            index.add(id, BenchmarkData.vector(random, StubEmbeddingService.DIMENSION));
+        }
+        queries = VectorSearchBenchmark.queries(new StubEmbeddingService());
+    }
+
+    @Benchmark
+    public List<VectorIndex.SearchHit> hnswSearch() {
+        return index.search(queries[next++ & (queries.length - 1)], 10);
+    }
+}
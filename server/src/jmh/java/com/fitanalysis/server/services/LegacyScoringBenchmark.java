@@ -0,0 +1,74 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The original analyzeQuery scoring loop, kept as the baseline for VectorSearchBenchmark: every stored
+ * embedding is parsed from its comma-separated string, scored with a three-sum cosine and the whole list
+ * sorted. A million embeddings as strings don't fit in a sensible heap, so this stops at 100k.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class LegacyScoringBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private String[] embeddings;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        embeddings = new String[size];
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < size; i++) {
+            embeddings[i] = VectorSerializationBenchmark.legacyToString(
+                BenchmarkData.vector(random, StubEmbeddingService.DIMENSION));
+        }
+        queries = VectorSearchBenchmark.queries(new StubEmbeddingService());
+    }
+
+    @Benchmark
+    public List<Scored> legacyScoringLoop() {
+        float[] queryEmbedding = queries[next++ & (queries.length - 1)];
+        List<Scored> scoredChunks = new ArrayList<>();
+        for (int row = 0; row < embeddings.length; row++) {
+            float[] chunkEmbedding = VectorSerializationBenchmark.legacyParse(embeddings[row]);
+            scoredChunks.add(new Scored(row, cosineSimilarity(queryEmbedding, chunkEmbedding)));
+        }
+        scoredChunks.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+        return new ArrayList<>(scoredChunks.subList(0, Math.min(10, scoredChunks.size())));
+    }
+
+    public record Scored(int row, double similarity) {}
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        double dot = 0.0, normA = 0.0, normB = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB) + 1e-10);
+    }
+}
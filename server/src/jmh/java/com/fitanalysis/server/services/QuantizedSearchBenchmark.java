@@ -0,0 +1,97 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-phase top-10 retrieval with each encoding's default re-rank factor: a scan over int8 or binary codes
+ * for a shortlist of candidates, then an exact cosine re-rank, as ChunkRetrievalService does it. Setup prints
+ * recall@10 against the exact flat index and the code size per vector; compare timings with
+ * VectorSearchBenchmark at the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class QuantizedSearchBenchmark {
+
+    private static final int K = 10;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"INT8", "BINARY"})
+    public QuantizedVectorIndex.Encoding encoding;
+
+    private QuantizedVectorIndex index;
+    private int shortlist;
+    // Stands in for the full-precision embeddings loaded with the shortlisted rows
+    private float[][] embeddings;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new QuantizedVectorIndex(encoding);
+        shortlist = K * encoding.defaultRerankFactor();
+        FlatVectorIndex exact = new FlatVectorIndex();
+        embeddings = new float[size][];
+        SplittableRandom random = new SplittableRandom(1);
+        for (int id = 0; id < size; id++) {
+            embeddings[id] = BenchmarkData.vector(random, StubEmbeddingService.DIMENSION);
+            index.add(id, embeddings[id]);
+            exact.add(id, embeddings[id]);
+        }
+        queries = new float[64][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = BenchmarkData.vector(random, StubEmbeddingService.DIMENSION);
+        }
+        long found = 0;
+        for (float[] query : queries) {
+            Set<Long> exactIds = new HashSet<>();
+            for (VectorIndex.SearchHit hit : exact.search(query, K)) {
+                exactIds.add(hit.chunkId());
+            }
+            for (Scored scored : twoPhaseSearch(query)) {
+                if (exactIds.contains(scored.id())) found++;
+            }
+        }
+        System.out.printf("%n%s: recall@%d %.3f, %d bytes per vector (float: %d)%n", encoding, K,
+                (double) found / (queries.length * K), index.bytesPerVector(), StubEmbeddingService.DIMENSION * Float.BYTES);
+    }
+
+    @Benchmark
+    public List<Scored> twoPhaseSearch() {
+        return twoPhaseSearch(queries[next++ & (queries.length - 1)]);
+    }
+
+    private List<Scored> twoPhaseSearch(float[] query) {
+        List<Scored> rescored = new ArrayList<>(shortlist);
+        for (VectorIndex.SearchHit hit : index.search(query, shortlist)) {
+            float[] embedding = embeddings[(int) hit.chunkId()];
+            rescored.add(new Scored(hit.chunkId(), VectorMath.cosineSimilarity(query, embedding, 0, embedding.length)));
+        }
+        rescored.sort((a, b) -> Double.compare(b.similarity(), a.similarity()));
+        return rescored.subList(0, Math.min(K, rescored.size()));
+    }
+
+    public record Scored(long id, double similarity) {}
+}
@@ -0,0 +1,22 @@
+package com.fitanalysis.server.services;
+
+import java.util.SplittableRandom;
+
+/**
+ * Offline stand-in for the Gemini client so the benchmarks never touch the network: embeddings are
+ * derived deterministically from the text, and every prompt gets the same recorded-style analysis reply.
+ */
+class StubEmbeddingService extends EmbeddingService {
+
+    static final int DIMENSION = 768;
+
+    @Override
+    public float[] getEmbedding(String text) {
+        return BenchmarkData.vector(new SplittableRandom(text.hashCode()), DIMENSION);
+    }
+
+    @Override
+    public String generateText(String prompt) {
+        return BenchmarkData.GEMINI_RESPONSE;
+    }
+}
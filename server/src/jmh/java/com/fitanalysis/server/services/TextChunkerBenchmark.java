@@ -0,0 +1,81 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking one MB of transcript: the old regex splitter against the token-aware chunker, both copying
+ * every chunk and reporting offsets only. Run with -prof gc; gc.alloc.rate.norm is bytes per MB chunked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextChunkerBenchmark {
+
+    /** punctuated: subtitles with sentence punctuation; captions: YouTube auto-captions, which have none. */
+    @Param({"punctuated", "captions"})
+    public String style;
+
+    private String transcript;
+    private TextChunker chunker;
+
+    @Setup
+    public void setUp() {
+        transcript = BenchmarkData.transcript(1 << 20, style.equals("punctuated"));
+        chunker = new TextChunker(256, 32, 2048);
+    }
+
+    @Benchmark
+    public List<String> legacyRegexChunks() {
+        return legacyChunkText(transcript, 1000);
+    }
+
+    @Benchmark
+    public List<String> tokenChunks() {
+        return chunker.chunkText(transcript);
+    }
+
+    @Benchmark
+    public void tokenChunkOffsets(Blackhole blackhole) {
+        chunker.forEachChunk(transcript, (start, end, tokens) -> blackhole.consume(end - start));
+    }
+
+    // TextChunker.chunkText as it was before token-aware chunking, kept as the baseline
+    static List<String> legacyChunkText(String text, int maxChunkSize) {
+        List<String> chunks = new ArrayList<>();
+        String[] sentences = text.split("[.!?]+");
+        StringBuilder currentChunk = new StringBuilder();
+        for (String sentence : sentences) {
+            sentence = sentence.trim();
+            if (sentence.isEmpty()) continue;
+            if (currentChunk.length() + sentence.length() > maxChunkSize) {
+                if (currentChunk.length() > 0) {
+                    chunks.add(currentChunk.toString().trim());
+                    currentChunk = new StringBuilder();
+                }
+            }
+            currentChunk.append(sentence).append(". ");
+        }
+        if (currentChunk.length() > 0) {
+            chunks.add(currentChunk.toString().trim());
+        }
+        return chunks;
+    }
+}
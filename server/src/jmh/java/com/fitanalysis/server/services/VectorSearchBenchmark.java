@@ -0,0 +1,62 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 retrieval against the flat index, which is what analyzeQuery's scoring loop became. One million
+ * 768-dimension vectors take 3 GB, hence the larger fork heap. Queries come from the stub embedding service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class VectorSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private FlatVectorIndex index;
+    private float[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new FlatVectorIndex();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int id = 0; id < size; id++) {
+            index.add(id, BenchmarkData.vector(random, StubEmbeddingService.DIMENSION));
+        }
+        queries = queries(new StubEmbeddingService());
+    }
+
+    @Benchmark
+    public List<VectorIndex.SearchHit> flatSearch() {
+        return index.search(queries[next++ & (queries.length - 1)], 10);
+    }
+
+    static float[][] queries(EmbeddingService embeddingService) {
+        String[] topics = {"training volume", "protein intake", "rest intervals", "training to failure",
+            "sleep and recovery", "squat depth", "progressive overload", "training frequency"};
+        float[][] queries = new float[64][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = embeddingService.getEmbedding(topics[i % topics.length] + " " + i);
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,127 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.VectorConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 768-dimension embedding to and from its stored form: the original floatArrayToString and
+ * stringToFloatArray, the pgvector text literal written by VectorConverter, a single-pass writer and
+ * parser for the same literal, and raw little-endian bytes as the binary alternative.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorSerializationBenchmark {
+
+    private final VectorConverter converter = new VectorConverter();
+    private float[] embedding;
+    private String legacyText;
+    private String pgvectorText;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        embedding = new StubEmbeddingService().getEmbedding("serialization");
+        legacyText = legacyToString(embedding);
+        pgvectorText = converter.convertToDatabaseColumn(embedding);
+        binary = toBytes(embedding);
+    }
+
+    @Benchmark
+    public String legacyFloatArrayToString() {
+        return legacyToString(embedding);
+    }
+
+    @Benchmark
+    public float[] legacyStringToFloatArray() {
+        return legacyParse(legacyText);
+    }
+
+    @Benchmark
+    public String converterToDatabaseColumn() {
+        return converter.convertToDatabaseColumn(embedding);
+    }
+
+    @Benchmark
+    public float[] converterToEntityAttribute() {
+        return converter.convertToEntityAttribute(pgvectorText);
+    }
+
+    @Benchmark
+    public String singlePassWrite() {
+        StringBuilder text = new StringBuilder(embedding.length * 12 + 2).append('[');
+        for (int i = 0; i < embedding.length; i++) {
+            if (i > 0) text.append(',');
+            text.append(embedding[i]);
+        }
+        return text.append(']').toString();
+    }
+
+    @Benchmark
+    public float[] singlePassParse() {
+        float[] values = new float[embedding.length];
+        int count = 0;
+        int start = 1;
+        int end = pgvectorText.length() - 1;
+        for (int i = start; i <= end; i++) {
+            if (i == end || pgvectorText.charAt(i) == ',') {
+                values[count++] = Float.parseFloat(pgvectorText.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return values;
+    }
+
+    @Benchmark
+    public byte[] binaryWrite() {
+        return toBytes(embedding);
+    }
+
+    @Benchmark
+    public float[] binaryRead() {
+        float[] values = new float[binary.length / Float.BYTES];
+        ByteBuffer.wrap(binary).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(values);
+        return values;
+    }
+
+    // floatArrayToString and stringToFloatArray from AnalysisOrchestrationService before pgvector storage
+    static String legacyToString(float[] arr) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < arr.length; i++) {
+            sb.append(arr[i]);
+            if (i < arr.length - 1) sb.append(",");
+        }
+        return sb.toString();
+    }
+
+    static float[] legacyParse(String s) {
+        String[] parts = s.split(",");
+        float[] arr = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            arr[i] = Float.parseFloat(parts[i]);
+        }
+        return arr;
+    }
+
+    private static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+}
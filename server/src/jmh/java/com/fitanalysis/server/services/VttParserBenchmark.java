@@ -0,0 +1,73 @@
+package com.fitanalysis.server.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning an hour of subtitles into transcript text: the streaming VttTranscriptParser against the original
+ * regex cleanVttContent (minus its "cat" subprocess). Pass -jvmArgsAppend -Dbenchmark.vtt=path/to/file.vtt
+ * to run both on a recorded file instead of the generated ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VttParserBenchmark {
+
+    /** manual: uploaded subtitles; auto: YouTube auto-captions with word timings and rolling lines. */
+    @Param({"manual", "auto"})
+    public String style;
+
+    private String vtt;
+
+    @Setup
+    public void setUp() throws IOException {
+        String recorded = System.getProperty("benchmark.vtt");
+        vtt = recorded != null
+            ? Files.readString(Path.of(recorded), StandardCharsets.UTF_8)
+            : BenchmarkData.vtt(1200, style.equals("auto"));
+    }
+
+    @Benchmark
+    public String streamingParser() throws IOException {
+        return VttTranscriptParser.parse(new StringReader(vtt)).getText();
+    }
+
+    @Benchmark
+    public String legacyCleanVttContent() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(vtt));
+        StringBuilder cleaned = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("WEBVTT") ||
+                line.matches("^\\d{2}:\\d{2}:\\d{2}\\.\\d{3} --> \\d{2}:\\d{2}:\\d{2}\\.\\d{3}$") ||
+                line.trim().isEmpty()) {
+                continue;
+            }
+            if (line.matches("^\\d+$")) {
+                continue;
+            }
+            cleaned.append(line).append(" ");
+        }
+        return cleaned.toString().trim();
+    }
+}
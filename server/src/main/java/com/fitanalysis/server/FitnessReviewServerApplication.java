@@ -6,10 +6,22 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class FitnessReviewServerApplication {
     public static void main(String[] args) {
-        SpringApplication.run(FitnessReviewServerApplication.class, args);
+        SpringApplication application = new SpringApplication(FitnessReviewServerApplication.class);
+        // Defaults only; any property source (.env, environment, command line) overrides them
+        application.setDefaultProperties(Map.of(
+            "management.endpoints.web.exposure.include", "health,metrics,prometheus",
+            // An analysis is one long trace and there are few of them, so keep every one
+            "management.tracing.sampling.probability", "1.0",
+            // The OTLP/HTTP collector port; spans are exported there in batches
+            "management.otlp.tracing.endpoint", "http://localhost:4318/v1/traces",
+            "logging.level.com.fitanalysis", "INFO"
+        ));
+        application.run(args);
     }
 
     @Bean
@@ -0,0 +1,99 @@
+package com.fitanalysis.server.config;
+
+import com.fitanalysis.server.services.ConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisQueryExecutor(@Value("${analysis.executor.threads:16}") int threads) {
+        return fixedPool("analysis-query", threads);
+    }
+
+    // Strips page ranges of large PDFs in parallel, see PdfTextExtractor
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pdfPageExecutor(@Value("${ingestion.pdf.page-threads:4}") int threads) {
+        return fixedPool("pdf-page", Math.max(1, threads));
+    }
+
+    // Worker pools of the paper ingestion stages, reused by every pipeline run; each run puts one
+    // long-lived worker per thread on its stage's pool
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ingestExtractionExecutor(@Value("${ingestion.pipeline.extract-threads:2}") int threads) {
+        return fixedPool("ingest-extraction", Math.max(1, threads));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ingestEmbeddingExecutor(@Value("${ingestion.pipeline.embed-threads:4}") int threads) {
+        return fixedPool("ingest-embedding", Math.max(1, threads));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ingestPersistenceExecutor(@Value("${ingestion.pipeline.persist-threads:1}") int threads) {
+        return fixedPool("ingest-persistence", Math.max(1, threads));
+    }
+
+    // Bounded queue with the default abort policy: a full queue rejects new jobs so callers can shed load
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService analysisJobExecutor(@Value("${analysis.jobs.threads:4}") int threads,
+                                               @Value("${analysis.jobs.queue-capacity:100}") int queueCapacity) {
+        return fixedPool("analysis-job", threads, new ArrayBlockingQueue<>(queueCapacity));
+    }
+
+    // Videos of a bulk (playlist/channel) run in flight at once; kept apart from analysisJobExecutor so a
+    // large run queues behind itself instead of filling the interactive job queue
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService bulkAnalysisExecutor(@Value("${analysis.bulk.threads:2}") int threads) {
+        return fixedPool("bulk-analysis", threads);
+    }
+
+    // Drains the stdout and stderr of each yt-dlp child; the process cap bounds the readers to two per process,
+    // so a child never blocks on a full pipe waiting for a reader thread
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService ytDlpPipeExecutor(@Value("${ytdlp.max-processes:2}") int maxProcesses) {
+        return fixedPool("ytdlp-pipe", 2 * Math.max(1, maxProcesses));
+    }
+
+    // Independent caps on each upstream, shared by interactive and bulk analyses
+
+    @Bean
+    public ConcurrencyLimiter llmConcurrencyLimiter(@Value("${analysis.llm.max-in-flight:8}") int maxInFlight) {
+        return new ConcurrencyLimiter("LLM", maxInFlight);
+    }
+
+    @Bean
+    public ConcurrencyLimiter embeddingConcurrencyLimiter(@Value("${embedding.max-in-flight:8}") int maxInFlight) {
+        return new ConcurrencyLimiter("embedding", maxInFlight);
+    }
+
+    @Bean
+    public ConcurrencyLimiter ytDlpConcurrencyLimiter(@Value("${ytdlp.max-processes:2}") int maxProcesses) {
+        return new ConcurrencyLimiter("yt-dlp", maxProcesses);
+    }
+
+    private static ExecutorService fixedPool(String namePrefix, int threads) {
+        return fixedPool(namePrefix, threads, new LinkedBlockingQueue<>());
+    }
+
+    private static ExecutorService fixedPool(String namePrefix, int threads, BlockingQueue<Runnable> queue) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, r -> {
+            Thread thread = new Thread(r, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.fitanalysis.server.config;
+
+import com.fitanalysis.server.services.PipelineMetrics;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ObservabilityConfig {
+
+    // Stage timers publish histogram buckets (for Prometheus quantiles across instances) and local p50/p95/p99
+    @Bean
+    public MeterFilter pipelineTimerHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || !id.getName().startsWith(PipelineMetrics.PREFIX)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                    .percentilesHistogram(true)
+                    .percentiles(0.5, 0.95, 0.99)
+                    .build()
+                    .merge(config);
+            }
+        };
+    }
+}
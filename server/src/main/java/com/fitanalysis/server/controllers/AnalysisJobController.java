@@ -0,0 +1,98 @@
+package com.fitanalysis.server.controllers;
+
+import com.fitanalysis.server.models.AnalysisJob;
+import com.fitanalysis.server.models.JobStatus;
+import com.fitanalysis.server.services.AnalysisJobService;
+import com.fitanalysis.server.services.AnalysisMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/analysis/jobs")
+public class AnalysisJobController {
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Value("${analysis.mode:PER_SECTION}")
+    private AnalysisMode defaultAnalysisMode;
+
+    @Value("${analysis.jobs.max-wait-seconds:60}")
+    private long maxWaitSeconds;
+
+    public record SubmitRequest(String videoUrl, AnalysisMode mode) {}
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody SubmitRequest request) {
+        AnalysisJob job = analysisJobService.submit(request.videoUrl(), request.mode() != null ? request.mode() : defaultAnalysisMode);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/analysis/jobs/" + job.getId()))
+                .body(toView(job));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return analysisJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toView(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Long poll: answers as soon as the job finishes, or with its current state after waitSeconds
+    @GetMapping("/{jobId}/result")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitResult(@PathVariable String jobId,
+                                                                           @RequestParam(defaultValue = "30") long waitSeconds) {
+        long timeoutMillis = Math.min(Math.max(waitSeconds, 0), maxWaitSeconds) * 1000;
+        DeferredResult<ResponseEntity<Map<String, Object>>> deferred = new DeferredResult<>(timeoutMillis);
+        if (analysisJobService.getJob(jobId).isEmpty()) {
+            deferred.setResult(ResponseEntity.notFound().build());
+            return deferred;
+        }
+        CompletableFuture<AnalysisJob> completion = analysisJobService.awaitCompletion(jobId);
+        deferred.onTimeout(() -> deferred.setResult(getJob(jobId)));
+        // Runs after a result, a timeout or a dropped connection alike
+        deferred.onCompletion(() -> analysisJobService.stopAwaiting(jobId, completion));
+        completion.thenAccept(job -> deferred.setResult(ResponseEntity.ok(toView(job))));
+        return deferred;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleQueueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("error", "Analysis queue is full, retry later"));
+    }
+
+    private Map<String, Object> toView(AnalysisJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", job.getId());
+        view.put("videoId", job.getVideoId());
+        view.put("status", job.getStatus());
+        view.put("mode", job.getAnalysisMode());
+        view.put("createdAt", job.getCreatedAt());
+        view.put("updatedAt", job.getUpdatedAt());
+        if (job.getError() != null) {
+            view.put("error", job.getError());
+        }
+        if (job.getStatus() == JobStatus.SUCCEEDED) {
+            // Served from the stored bytes with an ETag and gzip, so polling never re-parses the analysis
+            view.put("resultUrl", "/api/analysis/results/" + job.getVideoId());
+        }
+        return view;
+    }
+}
@@ -0,0 +1,94 @@
+package com.fitanalysis.server.controllers;
+
+import com.fitanalysis.server.services.AnalysisMode;
+import com.fitanalysis.server.services.AnalysisOutcome;
+import com.fitanalysis.server.services.AnalysisOrchestrationService;
+import com.fitanalysis.server.services.AnalysisProgressListener;
+import com.fitanalysis.server.services.AnalysisSection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server-Sent Events variant of the analysis: emits {@code progress} events for the ingestion stages,
+ * a {@code section} event as each sub-query finishes, then {@code complete} with the assembled result
+ * (which is persisted exactly like the synchronous path) or {@code error}.
+ */
+@RestController
+@RequestMapping("/api/analysis")
+public class AnalysisStreamController {
+
+    @Autowired
+    private AnalysisOrchestrationService analysisOrchestrationService;
+
+    @Autowired
+    private ExecutorService analysisJobExecutor;
+
+    @Value("${analysis.papers-directory:papers}")
+    private String papersDirectory;
+
+    @Value("${analysis.mode:PER_SECTION}")
+    private AnalysisMode defaultAnalysisMode;
+
+    @Value("${analysis.stream.timeout-ms:300000}")
+    private long streamTimeoutMillis;
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam String videoUrl, @RequestParam(required = false) AnalysisMode mode) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        AnalysisMode analysisMode = mode != null ? mode : defaultAnalysisMode;
+        try {
+            analysisJobExecutor.execute(() -> runStreamingAnalysis(emitter, videoUrl, analysisMode));
+        } catch (RejectedExecutionException e) {
+            send(emitter, "error", Map.of("error", "Analysis queue is full, retry later"));
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void runStreamingAnalysis(SseEmitter emitter, String videoUrl, AnalysisMode mode) {
+        AnalysisProgressListener listener = new AnalysisProgressListener() {
+            @Override
+            public void onProgress(String stage, String message) {
+                send(emitter, "progress", Map.of("stage", stage, "status", message));
+            }
+
+            @Override
+            public void onSection(AnalysisSection section, Object value, boolean failed) {
+                Map<String, Object> event = new LinkedHashMap<>();
+                event.put("section", section.getKey());
+                event.put("value", value);
+                event.put("failed", failed);
+                send(emitter, "section", event);
+            }
+        };
+        try {
+            AnalysisOutcome outcome = analysisOrchestrationService.runFullAnalysis(videoUrl, papersDirectory, mode, listener);
+            // The stored (compact, single-line) JSON bytes, written as-is
+            send(emitter, "complete", outcome.body().json());
+            emitter.complete();
+        } catch (Exception e) {
+            send(emitter, "error", Map.of("error", String.valueOf(e.getMessage())));
+            emitter.complete();
+        }
+    }
+
+    private static void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter timed out; the analysis still runs to completion and is persisted
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.fitanalysis.server.controllers;
+
+import com.fitanalysis.server.models.BulkAnalysisRun;
+import com.fitanalysis.server.services.AnalysisMode;
+import com.fitanalysis.server.services.BulkAnalysisService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/analysis/bulk")
+public class BulkAnalysisController {
+
+    @Autowired
+    private BulkAnalysisService bulkAnalysisService;
+
+    @Value("${analysis.mode:PER_SECTION}")
+    private AnalysisMode defaultAnalysisMode;
+
+    public record SubmitRequest(String url, AnalysisMode mode) {}
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody SubmitRequest request) {
+        BulkAnalysisRun run = bulkAnalysisService.submit(request.url(), request.mode() != null ? request.mode() : defaultAnalysisMode);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/analysis/bulk/" + run.getId()))
+                .body(bulkAnalysisService.report(run));
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<Map<String, Object>> getRun(@PathVariable String runId) {
+        return bulkAnalysisService.getRun(runId)
+                .map(run -> ResponseEntity.ok(bulkAnalysisService.report(run)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleQueueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(Map.of("error", "Analysis queue is full, retry later"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.fitanalysis.server.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "analysis_job")
+public class AnalysisJob {
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "video_url")
+    private String videoUrl;
+
+    // The finished analysis is stored in analysis_result under this video id
+    @Column(name = "video_id")
+    private String videoId;
+
+    @Column(name = "analysis_mode")
+    private String analysisMode;
+
+    // Set for jobs created by a bulk (playlist/channel) run
+    @Column(name = "bulk_run_id", length = 36)
+    private String bulkRunId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private JobStatus status;
+
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public AnalysisJob() {}
+
+    public AnalysisJob(String id, String videoUrl, String videoId, String analysisMode, JobStatus status) {
+        this.id = id;
+        this.videoUrl = videoUrl;
+        this.videoId = videoId;
+        this.analysisMode = analysisMode;
+        this.status = status;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getVideoUrl() { return videoUrl; }
+    public void setVideoUrl(String videoUrl) { this.videoUrl = videoUrl; }
+    public String getVideoId() { return videoId; }
+    public void setVideoId(String videoId) { this.videoId = videoId; }
+    public String getAnalysisMode() { return analysisMode; }
+    public void setAnalysisMode(String analysisMode) { this.analysisMode = analysisMode; }
+    public String getBulkRunId() { return bulkRunId; }
+    public void setBulkRunId(String bulkRunId) { this.bulkRunId = bulkRunId; }
+    public JobStatus getStatus() { return status; }
+    public void setStatus(JobStatus status) { this.status = status; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -19,6 +19,13 @@ public class AnalysisResult {
     @Column(name = "analysis_json", columnDefinition = "TEXT")
     private String analysisJson;
 
+    // analysis_json gzipped and its ETag, stored so cached responses are never recompressed or rehashed
+    @Column(name = "analysis_gzip")
+    private byte[] analysisGzip;
+
+    @Column(name = "etag", length = 64)
+    private String etag;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -39,6 +46,10 @@ public class AnalysisResult {
     public void setVideoTitle(String videoTitle) { this.videoTitle = videoTitle; }
     public String getAnalysisJson() { return analysisJson; }
     public void setAnalysisJson(String analysisJson) { this.analysisJson = analysisJson; }
+    public byte[] getAnalysisGzip() { return analysisGzip; }
+    public void setAnalysisGzip(byte[] analysisGzip) { this.analysisGzip = analysisGzip; }
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 } 
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.fitanalysis.server.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A playlist or channel submitted for bulk analysis. QUEUED until its videos have been listed, RUNNING once
+ * each video has its own analysis_job (tagged with this run's id), FAILED if the listing failed.
+ */
+@Entity
+@Table(name = "bulk_analysis_run")
+public class BulkAnalysisRun {
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "source_url", length = 1024)
+    private String sourceUrl;
+
+    @Column(name = "analysis_mode")
+    private String analysisMode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private JobStatus status;
+
+    @Column(name = "video_count")
+    private Integer videoCount;
+
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public BulkAnalysisRun() {}
+
+    public BulkAnalysisRun(String id, String sourceUrl, String analysisMode) {
+        this.id = id;
+        this.sourceUrl = sourceUrl;
+        this.analysisMode = analysisMode;
+        this.status = JobStatus.QUEUED;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getSourceUrl() { return sourceUrl; }
+    public void setSourceUrl(String sourceUrl) { this.sourceUrl = sourceUrl; }
+    public String getAnalysisMode() { return analysisMode; }
+    public void setAnalysisMode(String analysisMode) { this.analysisMode = analysisMode; }
+    public JobStatus getStatus() { return status; }
+    public void setStatus(JobStatus status) { this.status = status; }
+    public Integer getVideoCount() { return videoCount; }
+    public void setVideoCount(Integer videoCount) { this.videoCount = videoCount; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,58 @@
+package com.fitanalysis.server.models;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnTransformer;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry implements Persistable<String> {
+    // SHA-256 of model id + input text, hex encoded
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "model_id")
+    private String modelId;
+
+    @Convert(converter = VectorConverter.class)
+    @ColumnTransformer(write = "CAST(? AS vector)")
+    @Column(name = "embedding", columnDefinition = "vector")
+    private float[] embedding;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // The id is assigned, so without this save() would merge (a SELECT per row) instead of a batched insert
+    @Transient
+    private boolean isNew = true;
+
+    public EmbeddingCacheEntry() {}
+
+    public EmbeddingCacheEntry(String contentHash, String modelId, float[] embedding) {
+        this.contentHash = contentHash;
+        this.modelId = modelId;
+        this.embedding = embedding;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() { return contentHash; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getModelId() { return modelId; }
+    public void setModelId(String modelId) { this.modelId = modelId; }
+    public float[] getEmbedding() { return embedding; }
+    public void setEmbedding(float[] embedding) { this.embedding = embedding; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
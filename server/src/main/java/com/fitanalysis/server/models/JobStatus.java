@@ -0,0 +1,8 @@
+package com.fitanalysis.server.models;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
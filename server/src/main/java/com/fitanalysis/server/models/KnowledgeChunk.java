@@ -1,20 +1,29 @@
 package com.fitanalysis.server.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnTransformer;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "knowledge_chunk")
 public class KnowledgeChunk {
+    // Must match the output size of the embedding model and the vector(N) column in init.sql
+    public static final int EMBEDDING_DIMENSION = 768;
+
+    // Sequence ids (not IDENTITY) so Hibernate can batch inserts; allocationSize must match the
+    // INCREMENT BY of knowledge_chunk_id_seq in init.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "knowledge_chunk_seq")
+    @SequenceGenerator(name = "knowledge_chunk_seq", sequenceName = "knowledge_chunk_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "chunk_text", columnDefinition = "TEXT")
     private String chunkText;
 
-    @Column(name = "embedding", columnDefinition = "TEXT")
-    private String embedding;
+    @Convert(converter = VectorConverter.class)
+    @ColumnTransformer(write = "CAST(? AS vector)")
+    @Column(name = "embedding", columnDefinition = "vector(" + EMBEDDING_DIMENSION + ")")
+    private float[] embedding;
 
     @Column(name = "source_id")
     private String sourceId;
@@ -32,7 +41,7 @@ public class KnowledgeChunk {
     // Constructors
     public KnowledgeChunk() {}
 
-    public KnowledgeChunk(String chunkText, String embedding, String sourceId, SourceType sourceType, String metadataJson) {
+    public KnowledgeChunk(String chunkText, float[] embedding, String sourceId, SourceType sourceType, String metadataJson) {
         this.chunkText = chunkText;
         this.embedding = embedding;
         this.sourceId = sourceId;
@@ -46,8 +55,8 @@ public class KnowledgeChunk {
     public void setId(Long id) { this.id = id; }
     public String getChunkText() { return chunkText; }
     public void setChunkText(String chunkText) { this.chunkText = chunkText; }
-    public String getEmbedding() { return embedding; }
-    public void setEmbedding(String embedding) { this.embedding = embedding; }
+    public float[] getEmbedding() { return embedding; }
+    public void setEmbedding(float[] embedding) { this.embedding = embedding; }
     public String getSourceId() { return sourceId; }
     public void setSourceId(String sourceId) { this.sourceId = sourceId; }
     public SourceType getSourceType() { return sourceType; }
@@ -0,0 +1,49 @@
+package com.fitanalysis.server.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "paper_manifest")
+public class PaperManifestEntry {
+    // Absolute path of the PDF as last seen in the papers directory
+    @Id
+    @Column(name = "path", length = 1024)
+    private String path;
+
+    // SHA-256 of the file contents, hex encoded; chunks are stored under source id "paper:<hash>"
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "size_bytes")
+    private long sizeBytes;
+
+    @Column(name = "last_modified")
+    private long lastModified;
+
+    @Column(name = "ingested_at")
+    private LocalDateTime ingestedAt;
+
+    public PaperManifestEntry() {}
+
+    public PaperManifestEntry(String path, String contentHash, long sizeBytes, long lastModified) {
+        this.path = path;
+        this.contentHash = contentHash;
+        this.sizeBytes = sizeBytes;
+        this.lastModified = lastModified;
+        this.ingestedAt = LocalDateTime.now();
+    }
+
+    public String getSourceId() { return "paper:" + contentHash; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public long getLastModified() { return lastModified; }
+    public void setLastModified(long lastModified) { this.lastModified = lastModified; }
+    public LocalDateTime getIngestedAt() { return ingestedAt; }
+    public void setIngestedAt(LocalDateTime ingestedAt) { this.ingestedAt = ingestedAt; }
+}
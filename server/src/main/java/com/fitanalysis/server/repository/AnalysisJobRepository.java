@@ -0,0 +1,13 @@
+package com.fitanalysis.server.repository;
+
+import com.fitanalysis.server.models.AnalysisJob;
+import com.fitanalysis.server.models.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
+
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, String> {
+    List<AnalysisJob> findByStatusInOrderByCreatedAt(Collection<JobStatus> statuses);
+
+    List<AnalysisJob> findByBulkRunId(String bulkRunId);
+}
@@ -0,0 +1,10 @@
+package com.fitanalysis.server.repository;
+
+import com.fitanalysis.server.models.BulkAnalysisRun;
+import com.fitanalysis.server.models.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface BulkAnalysisRunRepository extends JpaRepository<BulkAnalysisRun, String> {
+    List<BulkAnalysisRun> findByStatusOrderByCreatedAt(JobStatus status);
+}
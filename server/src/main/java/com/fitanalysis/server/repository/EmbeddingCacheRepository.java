@@ -0,0 +1,7 @@
+package com.fitanalysis.server.repository;
+
+import com.fitanalysis.server.models.EmbeddingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+}
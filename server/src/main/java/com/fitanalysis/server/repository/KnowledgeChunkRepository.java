@@ -2,13 +2,31 @@ package com.fitanalysis.server.repository;
 
 import com.fitanalysis.server.models.KnowledgeChunk;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface KnowledgeChunkRepository extends JpaRepository<KnowledgeChunk, Long> {
-    @Query(value = "SELECT * FROM knowledge_chunk ORDER BY embedding <-> CAST(:embedding AS vector) LIMIT :limit", nativeQuery = true)
-    List<KnowledgeChunk> findNearestNeighbors(@Param("embedding") String embedding, @Param("limit") int limit);
+    // <=> is cosine distance. The source_type literal has to match the partial HNSW index in init.sql for
+    // Postgres to use it, so it is not a bind parameter.
+    @Query(value = "SELECT * FROM knowledge_chunk WHERE source_type = 'RESEARCH_PAPER' "
+            + "ORDER BY embedding <=> CAST(:embedding AS vector) LIMIT :limit", nativeQuery = true)
+    List<KnowledgeChunk> findNearestPaperChunks(@Param("embedding") String embedding, @Param("limit") int limit);
+
+    // One source's chunks come from the source_id index and are scored exactly
+    @Query(value = "SELECT * FROM knowledge_chunk WHERE source_id = :sourceId "
+            + "ORDER BY embedding <=> CAST(:embedding AS vector) LIMIT :limit", nativeQuery = true)
+    List<KnowledgeChunk> findNearestChunksBySourceId(@Param("embedding") String embedding, @Param("sourceId") String sourceId,
+                                                     @Param("limit") int limit);
 
     boolean existsBySourceId(String sourceId);
-} 
\ No newline at end of file
+
+    @Query("SELECT c.id FROM KnowledgeChunk c WHERE c.sourceId = :sourceId")
+    List<Long> findIdsBySourceId(@Param("sourceId") String sourceId);
+
+    @Modifying
+    @Query("DELETE FROM KnowledgeChunk c WHERE c.sourceId = :sourceId")
+    int deleteBySourceId(@Param("sourceId") String sourceId);
+}
+ 
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.fitanalysis.server.repository;
+
+import com.fitanalysis.server.models.PaperManifestEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PaperManifestRepository extends JpaRepository<PaperManifestEntry, String> {
+}
@@ -0,0 +1,213 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.AnalysisJob;
+import com.fitanalysis.server.models.JobStatus;
+import com.fitanalysis.server.repository.AnalysisJobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous analysis jobs. Submitting returns a persisted job immediately; the analysis runs on the
+ * bounded job executor, and a full queue rejects the submission instead of tying up request threads.
+ * Jobs still QUEUED or RUNNING after a restart are picked up again by the recovery sweep. Jobs of a bulk
+ * run go through the same lifecycle on the bulk executor.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final List<JobStatus> PENDING = List.of(JobStatus.QUEUED, JobStatus.RUNNING);
+
+    @Autowired
+    private AnalysisJobRepository analysisJobRepository;
+
+    @Autowired
+    private AnalysisOrchestrationService analysisOrchestrationService;
+
+    @Autowired
+    private AnalysisResultCache analysisResultCache;
+
+    @Autowired
+    private ExecutorService analysisJobExecutor;
+
+    @Autowired
+    private ExecutorService bulkAnalysisExecutor;
+
+    @Value("${analysis.papers-directory:papers}")
+    private String papersDirectory;
+
+    // Job ids currently handed to the executor, so the recovery sweep doesn't schedule them twice
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<CompletableFuture<AnalysisJob>>> completions = new ConcurrentHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if the URL is not a recognised YouTube URL
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public AnalysisJob submit(String videoUrl, AnalysisMode mode) {
+        String videoId = analysisOrchestrationService.extractVideoId(videoUrl);
+        String jobId = UUID.randomUUID().toString();
+        if (analysisResultCache.get(videoId).isPresent()) {
+            // Already analysed: answer without queueing
+            return analysisJobRepository.save(new AnalysisJob(jobId, videoUrl, videoId, mode.name(), JobStatus.SUCCEEDED));
+        }
+        AnalysisJob job = analysisJobRepository.save(new AnalysisJob(jobId, videoUrl, videoId, mode.name(), JobStatus.QUEUED));
+        try {
+            schedule(job);
+        } catch (RejectedExecutionException e) {
+            analysisJobRepository.delete(job);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * One job per video of a bulk run, run on the bulk executor. Videos that already have a job in the run
+     * are skipped, so listing a run again after a restart only adds what is missing.
+     *
+     * @return the number of jobs created
+     */
+    public int submitBulk(String bulkRunId, List<String> videoIds, AnalysisMode mode) {
+        Set<String> existing = new HashSet<>();
+        for (AnalysisJob job : analysisJobRepository.findByBulkRunId(bulkRunId)) {
+            existing.add(job.getVideoId());
+        }
+        int created = 0;
+        for (String videoId : videoIds) {
+            if (!existing.add(videoId)) {
+                continue;
+            }
+            boolean cached = analysisResultCache.get(videoId).isPresent();
+            AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), YouTubeUrls.watchUrl(videoId), videoId, mode.name(),
+                cached ? JobStatus.SUCCEEDED : JobStatus.QUEUED);
+            job.setBulkRunId(bulkRunId);
+            analysisJobRepository.save(job);
+            if (!cached) {
+                schedule(job);
+            }
+            created++;
+        }
+        return created;
+    }
+
+    public List<AnalysisJob> getBulkJobs(String bulkRunId) {
+        return analysisJobRepository.findByBulkRunId(bulkRunId);
+    }
+
+    public Optional<AnalysisJob> getJob(String jobId) {
+        return analysisJobRepository.findById(jobId);
+    }
+
+    /**
+     * Completes with the job once it reaches SUCCEEDED or FAILED. A waiter that gives up first must call
+     * {@link #stopAwaiting} so it doesn't stay registered until the job ends.
+     */
+    public CompletableFuture<AnalysisJob> awaitCompletion(String jobId) {
+        CompletableFuture<AnalysisJob> completion = new CompletableFuture<>();
+        completions.compute(jobId, (id, waiters) -> {
+            Set<CompletableFuture<AnalysisJob>> registered = waiters != null ? waiters : ConcurrentHashMap.newKeySet();
+            registered.add(completion);
+            return registered;
+        });
+        // Re-read after registering so a job that finished in between isn't missed
+        getJob(jobId).filter(job -> !PENDING.contains(job.getStatus())).ifPresent(job -> {
+            stopAwaiting(jobId, completion);
+            completion.complete(job);
+        });
+        return completion;
+    }
+
+    public void stopAwaiting(String jobId, CompletableFuture<AnalysisJob> completion) {
+        completions.computeIfPresent(jobId, (id, waiters) -> {
+            waiters.remove(completion);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeueInterruptedJobs() {
+        for (AnalysisJob job : analysisJobRepository.findByStatusInOrderByCreatedAt(List.of(JobStatus.RUNNING))) {
+            updateStatus(job, JobStatus.QUEUED, null);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${analysis.jobs.recovery-initial-delay-ms:5000}",
+               fixedDelayString = "${analysis.jobs.recovery-interval-ms:30000}")
+    public void scheduleRecoveredJobs() {
+        for (AnalysisJob job : analysisJobRepository.findByStatusInOrderByCreatedAt(List.of(JobStatus.QUEUED))) {
+            if (scheduled.contains(job.getId())) {
+                continue;
+            }
+            try {
+                schedule(job);
+            } catch (RejectedExecutionException e) {
+                // Queue is full; the rest stay QUEUED for the next sweep
+                return;
+            }
+        }
+    }
+
+    // Bulk jobs queue on their own executor so a large run can't crowd out interactive submissions
+    private void schedule(AnalysisJob job) {
+        String jobId = job.getId();
+        if (!scheduled.add(jobId)) {
+            return;
+        }
+        ExecutorService executor = job.getBulkRunId() != null ? bulkAnalysisExecutor : analysisJobExecutor;
+        try {
+            executor.execute(() -> runJob(jobId));
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(jobId);
+            throw e;
+        }
+    }
+
+    private void runJob(String jobId) {
+        try {
+            AnalysisJob job = analysisJobRepository.findById(jobId).orElse(null);
+            if (job == null || !PENDING.contains(job.getStatus())) {
+                return;
+            }
+            updateStatus(job, JobStatus.RUNNING, null);
+            try {
+                AnalysisOutcome outcome = analysisOrchestrationService.runFullAnalysis(
+                    job.getVideoUrl(), papersDirectory, AnalysisMode.valueOf(job.getAnalysisMode()));
+                if (!outcome.complete()) {
+                    updateStatus(job, JobStatus.FAILED, "Incomplete sections: " + outcome.incompleteSections());
+                } else {
+                    updateStatus(job, JobStatus.SUCCEEDED, null);
+                }
+            } catch (Exception e) {
+                updateStatus(job, JobStatus.FAILED, e.getMessage());
+            }
+            Set<CompletableFuture<AnalysisJob>> waiters = completions.remove(jobId);
+            if (waiters != null) {
+                waiters.forEach(completion -> completion.complete(job));
+            }
+        } finally {
+            scheduled.remove(jobId);
+        }
+    }
+
+    private void updateStatus(AnalysisJob job, JobStatus status, String error) {
+        job.setStatus(status);
+        job.setError(error);
+        job.setUpdatedAt(LocalDateTime.now());
+        analysisJobRepository.save(job);
+    }
+}
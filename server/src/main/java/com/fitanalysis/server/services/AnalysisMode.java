@@ -0,0 +1,8 @@
+package com.fitanalysis.server.services;
+
+public enum AnalysisMode {
+    /** One retrieval and one LLM call per {@link AnalysisSection}, run concurrently. */
+    PER_SECTION,
+    /** Retrieval per section, merged and de-duplicated into a single context and a single LLM call. */
+    CONSOLIDATED
+}
@@ -3,18 +3,17 @@ package com.fitanalysis.server.services;
 import com.fitanalysis.server.models.KnowledgeChunk;
 import com.fitanalysis.server.models.SourceType;
 import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import io.micrometer.observation.Observation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Value;
 import com.fitanalysis.server.models.AnalysisResult;
 import com.fitanalysis.server.repository.AnalysisResultRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.File;
 import java.io.IOException;
@@ -22,153 +21,238 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class AnalysisOrchestrationService {
     
+    private static final Logger log = LoggerFactory.getLogger(AnalysisOrchestrationService.class);
+    
     @Autowired
     private YtDlpService ytDlpService;
     
     @Autowired
-    private EmbeddingService embeddingService;
+    private EmbeddingCache embeddingCache;
+    
+    @Autowired
+    private BatchEmbeddingService batchEmbeddingService;
     
     @Autowired
     private KnowledgeChunkRepository knowledgeChunkRepository;
     
+    @Autowired
+    private ChunkPersistenceService chunkPersistenceService;
+    
+    @Autowired
+    private PaperIngestionPipeline paperIngestionPipeline;
+    
+    @Autowired
+    private PaperDirectoryWatcher paperDirectoryWatcher;
+    
+    @Autowired
+    private TextChunker textChunker;
+    
     @Autowired
     private AnalysisResultRepository analysisResultRepository;
     
-    @Value("${GOOGLE_API_KEY}")
-    private String apiKey;
+    @Autowired
+    private AnalysisResultCache analysisResultCache;
+    
+    @Autowired
+    private ChunkRetrievalService chunkRetrievalService;
+    
+    @Autowired
+    private ConcurrencyLimiter llmConcurrencyLimiter;
+    
+    @Autowired
+    private GeminiClient geminiClient;
+    
+    @Autowired
+    private ContextAssembler contextAssembler;
+    
+    @Autowired
+    private ExecutorService analysisQueryExecutor;
+    
+    @Autowired
+    private PipelineMetrics metrics;
+    
+    @Value("${analysis.query-concurrency:5}")
+    private int queryConcurrency;
+    
+    @Value("${analysis.query-timeout-seconds:60}")
+    private long queryTimeoutSeconds;
+    
+    @Value("${ingestion.video.cue-timestamps:true}")
+    private boolean cueTimestamps;
+    
+    @Value("${analysis.mode:PER_SECTION}")
+    private AnalysisMode defaultAnalysisMode;
+    
+    @Value("${analysis.context.max-tokens:2000}")
+    private int contextMaxTokens;
+    
+    @Value("${analysis.context.consolidated-max-tokens:6000}")
+    private int consolidatedContextMaxTokens;
     
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String GEMINI_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent?key=";
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    public Map<String, Object> runFullAnalysis(String videoUrl, String papersDirectory) {
-        try {
-            // A. Ingest Papers
-            ingestPapers(papersDirectory);
+    public AnalysisOutcome runFullAnalysis(String videoUrl, String papersDirectory) {
+        return runFullAnalysis(videoUrl, papersDirectory, defaultAnalysisMode);
+    }
+    
+    public AnalysisOutcome runFullAnalysis(String videoUrl, String papersDirectory, AnalysisMode mode) {
+        return runFullAnalysis(videoUrl, papersDirectory, mode, AnalysisProgressListener.NONE);
+    }
+    
+    // The root span of an analysis: ingestion, embedding, retrieval, LLM and persistence spans nest under it.
+    // A stored analysis comes back as its stored bytes, never parsed.
+    public AnalysisOutcome runFullAnalysis(String videoUrl, String papersDirectory, AnalysisMode mode,
+                                           AnalysisProgressListener listener) {
+        Observation observation = metrics.start("analysis", mode.name().toLowerCase());
+        try (Observation.Scope scope = observation.openScope()) {
+            // A. Check for an existing analysis before paying for any ingestion
+            String videoId = extractVideoId(videoUrl);
+            observation.highCardinalityKeyValue("video_id", videoId);
+            Optional<AnalysisResultBody> existing = analysisResultCache.getBody(videoId);
+            if (existing.isPresent()) {
+                metrics.cacheHit("analysis_result");
+                log.info("Analysis for videoId={} already exists, skipping analysis", videoId);
+                listener.onProgress("cache", "hit");
+                return new AnalysisOutcome(existing.get(), List.of());
+            }
+            metrics.cacheMiss("analysis_result");
             
-            // B. Ingest Video
-            ingestVideo(videoUrl);
+            // B. Concurrent requests for the same video share one computation
+            return analysisResultCache.computeOnce(videoId, () -> computeAnalysis(videoId, videoUrl, papersDirectory, mode, listener));
             
-            // C. Check for existing analysis by videoId
-            String videoId = extractVideoId(videoUrl);
-            if (analysisResultRepository.existsByVideoId(videoId)) {
-                System.out.println("Analysis for video " + videoId + " already exists, skipping analysis.");
-                // Optionally, fetch and return the existing analysis result
-                AnalysisResult existing = analysisResultRepository.findByVideoId(videoId).get();
-                // Parse JSON to Map for return
-                return objectMapper.readValue(existing.getAnalysisJson(), Map.class);
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } catch (Exception e) {
+            observation.error(e);
+            throw new RuntimeException("Analysis failed: " + e.getMessage(), e);
+        } finally {
+            observation.stop();
+        }
+    }
+    
+    private AnalysisOutcome computeAnalysis(String videoId, String videoUrl, String papersDirectory, AnalysisMode mode,
+                                            AnalysisProgressListener listener) {
+        try {
+            // A request that finished while this one was checking may already have stored the result
+            Optional<AnalysisResultBody> existing = analysisResultCache.getBody(videoId);
+            if (existing.isPresent()) {
+                return new AnalysisOutcome(existing.get(), List.of());
             }
             
-            // D. Perform RAG & LLM Analysis
-            Map<String, Object> analysis = performRagAnalysis(videoUrl);
+            // C. Ingest Papers
+            listener.onProgress("papers", "started");
+            metrics.observe("ingestion", "papers", () -> ingestPapers(papersDirectory));
+            listener.onProgress("papers", "completed");
+            
+            // D. Ingest Video
+            listener.onProgress("video", "started");
+            metrics.observe("ingestion", "video", () -> ingestVideo(videoUrl));
+            listener.onProgress("video", "completed");
+            
+            // E. Perform RAG & LLM Analysis
+            listener.onProgress("analysis", "started");
+            Map<String, Object> analysis = performRagAnalysis(videoId, videoUrl, mode, listener);
+            listener.onProgress("analysis", "completed");
+            
+            String analysisJson = objectMapper.writeValueAsString(analysis);
+            AnalysisResultBody body = AnalysisResultBody.encode(analysisJson);
+            @SuppressWarnings("unchecked")
+            List<String> incompleteSections = (List<String>) analysis.getOrDefault("incomplete_sections", List.of());
+            if (!incompleteSections.isEmpty()) {
+                // Don't cache a partial analysis; a later request gets another chance at the failed sections
+                return new AnalysisOutcome(body, incompleteSections);
+            }
             
             // Persist the new analysis result
             String videoTitle = (String) analysis.getOrDefault("videoTitle", "Unknown Video");
-            String analysisJson = objectMapper.writeValueAsString(analysis);
             AnalysisResult result = new AnalysisResult(videoId, videoTitle, analysisJson);
-            analysisResultRepository.save(result);
+            result.setAnalysisGzip(body.gzip());
+            result.setEtag(body.etag());
+            analysisResultCache.put(metrics.observe("persistence", "analysis_result", () -> analysisResultRepository.save(result)));
             
-            return analysis;
+            return new AnalysisOutcome(body, List.of());
             
         } catch (Exception e) {
             throw new RuntimeException("Analysis failed: " + e.getMessage(), e);
         }
     }
     
-    private void ingestPapers(String papersDirectory) throws IOException {
-        System.out.println("Starting paper ingestion...");
-        File dir = new File(papersDirectory);
-        if (!dir.exists() || !dir.isDirectory()) {
-            System.out.println("Papers directory not found: " + papersDirectory);
-            return;
-        }
-        
-        File[] pdfFiles = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".pdf"));
-        if (pdfFiles == null || pdfFiles.length == 0) {
-            System.out.println("No PDF files found in: " + papersDirectory);
+    private void ingestPapers(String papersDirectory) throws InterruptedException {
+        if (paperDirectoryWatcher.isWatching(Paths.get(papersDirectory))) {
+            // Kept up to date in the background
             return;
         }
-        
-        System.out.println("Found " + pdfFiles.length + " PDF files to process");
-        
-        for (File pdfFile : pdfFiles) {
-            ingestPdf(pdfFile.getPath());
-        }
+        paperIngestionPipeline.run(Paths.get(papersDirectory));
     }
     
-    private void ingestVideo(String videoUrl) throws IOException, InterruptedException {
+    private void ingestVideo(String videoUrl) {
         String videoId = extractVideoId(videoUrl);
         if (knowledgeChunkRepository.existsBySourceId(videoId)) {
-            System.out.println("Chunks for video " + videoId + " already exist, skipping ingestion.");
+            log.debug("Chunks for videoId={} already exist, skipping ingestion", videoId);
             return;
         }
-        System.out.println("[DEBUG] Ingestion NOT skipped for video: " + videoId + ". Proceeding with ingestion.");
-        System.out.println("Starting video ingestion...");
+        log.info("Ingesting videoId={}", videoId);
         Map<String, Object> videoInfo;
         String transcript;
         try {
             videoInfo = ytDlpService.extractVideoInfo(videoUrl);
             transcript = (String) videoInfo.get("transcript");
             if (transcript == null || transcript.trim().isEmpty()) {
-                System.out.println("No transcript found for video: " + videoUrl);
+                log.warn("No transcript found for videoId={}", videoId);
                 return;
             }
-            System.out.println("Video transcript length: " + transcript.length() + " characters");
         } catch (Exception e) {
-            System.out.println("Error processing video: " + e.getMessage());
+            log.warn("Could not fetch videoId={}: {}", videoId, e.getMessage());
             return;
         }
-        List<String> chunks = chunkText(transcript, 1000);
-        System.out.println("Created " + chunks.size() + " chunks");
+        List<String> chunks = new ArrayList<>();
+        List<Integer> chunkOffsets = new ArrayList<>();
+        String chunkSource = transcript;
+        textChunker.forEachChunk(transcript, (start, end, tokens) -> {
+            chunks.add(chunkSource.substring(start, end));
+            chunkOffsets.add(start);
+        });
         String videoTitle = (String) videoInfo.get("title");
+        List<float[]> embeddings = batchEmbeddingService.getEmbeddings(chunks);
+        VttTranscriptParser.VttTranscript timeline = cueTimestamps
+            ? (VttTranscriptParser.VttTranscript) videoInfo.get("transcript_timeline") : null;
+        List<KnowledgeChunk> chunkEntities = new ArrayList<>(chunks.size());
         for (int i = 0; i < chunks.size(); i++) {
-            float[] embedding = embeddingService.getEmbedding(chunks.get(i));
-            String embeddingStr = floatArrayToString(embedding);
-            KnowledgeChunk chunk = new KnowledgeChunk(
+            // Built as a tree so titles with quotes, backslashes or control characters stay valid JSON
+            ObjectNode metadata = objectMapper.createObjectNode()
+                .put("video_title", videoTitle)
+                .put("chunk_index", i);
+            if (timeline != null) {
+                long startMillis = timeline.startMillisAt(chunkOffsets.get(i));
+                if (startMillis >= 0) metadata.put("start_ms", startMillis);
+            }
+            chunkEntities.add(new KnowledgeChunk(
                 chunks.get(i),
-                embeddingStr,
+                embeddings.get(i),
                 videoId,
                 SourceType.VIDEO,
-                "{\"video_title\":\"" + videoTitle + "\",\"chunk_index\":" + i + "}"
-            );
-            knowledgeChunkRepository.save(chunk);
-        }
-        System.out.println("Saved " + chunks.size() + " video chunks to database");
-    }
-    
-    private void ingestPdf(String pdfPath) throws IOException {
-        String sourceId = pdfPath;
-        if (knowledgeChunkRepository.existsBySourceId(sourceId)) {
-            System.out.println("Chunks for PDF " + sourceId + " already exist, skipping ingestion.");
-            return;
-        }
-        System.out.println("[DEBUG] Ingestion NOT skipped for PDF: " + sourceId + ". Proceeding with ingestion.");
-        System.out.println("Processing PDF: " + pdfPath);
-        String content = "Sample PDF content from " + pdfPath;
-        List<String> chunks = chunkText(content, 1000);
-        System.out.println("Created " + chunks.size() + " chunks from PDF");
-        for (int i = 0; i < chunks.size(); i++) {
-            float[] embedding = embeddingService.getEmbedding(chunks.get(i));
-            String embeddingStr = floatArrayToString(embedding);
-            KnowledgeChunk chunk = new KnowledgeChunk(
-                chunks.get(i),
-                embeddingStr,
-                pdfPath,
-                SourceType.RESEARCH_PAPER,
-                "{\"chunk_index\": " + i + "}"
-            );
-            knowledgeChunkRepository.save(chunk);
+                metadata.toString()
+            ));
         }
-        System.out.println("Saved " + chunks.size() + " PDF chunks to database");
+        chunkPersistenceService.saveChunks(chunkEntities);
+        log.info("Saved {} chunks for videoId={} ({} transcript chars)", chunks.size(), videoId, transcript.length());
     }
     
-    private Map<String, Object> performRagAnalysis(String videoUrl) {
+    private Map<String, Object> performRagAnalysis(String videoId, String videoUrl, AnalysisMode mode, AnalysisProgressListener listener) {
         Map<String, Object> result = new HashMap<>();
         // Get video title
         String videoTitle = "Unknown Video";
@@ -176,56 +260,127 @@ public class AnalysisOrchestrationService {
             Map<String, Object> videoInfo = ytDlpService.extractVideoInfo(videoUrl);
             videoTitle = (String) videoInfo.get("title");
         } catch (Exception e) {
-            System.out.println("Could not get video title: " + e.getMessage());
+            log.warn("Could not get video title: {}", e.getMessage());
         }
         result.put("videoTitle", videoTitle);
-        // Define analytical sub-queries
-        String[] queries = {
-            "Find good points and positive aspects mentioned in the content",
-            "Find bad points, criticisms, or negative aspects mentioned in the content", 
-            "Extract workout plan, exercises, sets, and reps mentioned",
-            "Write a conclusion summarizing the overall assessment",
-            "How well is the workout supported by research?"
-        };
+        List<String> incompleteSections = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        if (mode == AnalysisMode.CONSOLIDATED) {
+            result.put("analysis", runConsolidatedAnalysis(videoId, incompleteSections, listener));
+        } else {
+            result.put("analysis", runAnalysisSections(videoId, incompleteSections, listener));
+        }
+        log.info("Analysis in {} mode took {} ms", mode, System.currentTimeMillis() - start);
+        if (!incompleteSections.isEmpty()) {
+            result.put("incomplete_sections", incompleteSections);
+        }
+        return result;
+    }
+
+    // Fans the sub-queries out on the shared executor, at most analysis.query-concurrency at a time for
+    // this request. A section that fails or exceeds analysis.query-timeout-seconds falls back to its
+    // default value and is reported in incompleteSections instead of failing the whole analysis.
+    private Map<String, Object> runAnalysisSections(String videoId, List<String> incompleteSections,
+                                                    AnalysisProgressListener listener) {
+        Semaphore requestSlots = new Semaphore(Math.max(1, queryConcurrency));
+        Set<AnalysisSection> failed = ConcurrentHashMap.newKeySet();
+        Map<AnalysisSection, CompletableFuture<Object>> pending = new EnumMap<>(AnalysisSection.class);
+        for (AnalysisSection section : AnalysisSection.values()) {
+            requestSlots.acquireUninterruptibly();
+            Supplier<Map<String, Object>> query = metrics.withCurrentObservation(() -> metrics.observe(
+                "analysis.section", section.getKey(), () -> analyzeQuery(section, videoId)));
+            CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            Future<?> task = analysisQueryExecutor.submit(() -> {
+                try {
+                    future.complete(query.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            future.orTimeout(queryTimeoutSeconds, TimeUnit.SECONDS).whenComplete((r, e) -> {
+                if (e != null) {
+                    // Interrupt a timed-out query so it gives back its thread and LLM slot instead of running on
+                    task.cancel(true);
+                }
+                requestSlots.release();
+            });
+            // Resolve each section as soon as its own query finishes so listeners see it without waiting for the rest
+            pending.put(section, future.handle((geminiResult, e) -> {
+                if (e == null) {
+                    Object value = geminiResult.getOrDefault(section.getResponseField(), section.defaultValue());
+                    listener.onSection(section, value, false);
+                    return value;
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                String reason = cause instanceof TimeoutException ? "timed out" : cause.getMessage();
+                log.warn("Section {} failed ({}), using default", section.getKey(), reason);
+                failed.add(section);
+                listener.onSection(section, section.defaultValue(), true);
+                return section.defaultValue();
+            }));
+        }
         Map<String, Object> analysis = new HashMap<>();
-        for (String query : queries) {
-            Map<String, Object> geminiResult = analyzeQuery(query, videoTitle);
-            if (query.contains("good points")) {
-                analysis.put("good_points", geminiResult.getOrDefault("good_points", new ArrayList<>()));
-            } else if (query.contains("bad points")) {
-                analysis.put("bad_points", geminiResult.getOrDefault("bad_points", new ArrayList<>()));
-            } else if (query.contains("workout plan")) {
-                analysis.put("workout_plan", geminiResult.getOrDefault("actual_workout", ""));
-            } else if (query.contains("conclusion")) {
-                analysis.put("conclusion", geminiResult.getOrDefault("conclusion", ""));
-            } else if (query.contains("supported by research")) {
-                analysis.put("scientific_backing", geminiResult.getOrDefault("scientific_backing", ""));
+        for (Map.Entry<AnalysisSection, CompletableFuture<Object>> entry : pending.entrySet()) {
+            AnalysisSection section = entry.getKey();
+            analysis.put(section.getKey(), entry.getValue().join());
+            if (failed.contains(section)) {
+                incompleteSections.add(section.getKey());
             }
         }
-        result.put("analysis", analysis);
-        return result;
+        return analysis;
+    }
+
+    private Map<String, Object> analyzeQuery(AnalysisSection section, String videoId) {
+        float[] queryEmbedding = embeddingCache.getEmbedding(section.getQuery());
+        List<ScoredChunk> scoredChunks = chunkRetrievalService.retrieveForVideo(queryEmbedding, videoId);
+        ContextAssembler.AssembledContext context = contextAssembler.assemble(scoredChunks, contextMaxTokens);
+        return callAnalysisLlm(context.text(), section.getQuery(), "section", section.getKey());
     }
 
-    private Map<String, Object> analyzeQuery(String query, String videoTitle) {
-        float[] queryEmbedding = embeddingService.getEmbedding(query);
-        List<KnowledgeChunk> allChunks = knowledgeChunkRepository.findAll();
-        List<ScoredChunk> scoredChunks = new ArrayList<>();
-        for (KnowledgeChunk chunk : allChunks) {
-            float[] chunkEmbedding = stringToFloatArray(chunk.getEmbedding());
-            double similarity = cosineSimilarity(queryEmbedding, chunkEmbedding);
-            scoredChunks.add(new ScoredChunk(chunk, similarity));
+    // Single LLM round trip: retrieval runs for every section query, the hits are merged (a chunk found by
+    // several queries keeps its best score) into one budgeted context, and one prompt asks for all fields at once
+    private Map<String, Object> runConsolidatedAnalysis(String videoId, List<String> incompleteSections,
+                                                        AnalysisProgressListener listener) {
+        Map<Long, ScoredChunk> mergedChunks = new LinkedHashMap<>();
+        StringBuilder instructions = new StringBuilder();
+        for (AnalysisSection section : AnalysisSection.values()) {
+            float[] queryEmbedding = embeddingCache.getEmbedding(section.getQuery());
+            for (ScoredChunk scored : chunkRetrievalService.retrieveForVideo(queryEmbedding, videoId)) {
+                mergedChunks.merge(scored.getChunk().getId(), scored,
+                    (kept, found) -> found.getSimilarity() > kept.getSimilarity() ? found : kept);
+            }
+            instructions.append("- ").append(section.getResponseField()).append(": ").append(section.getQuery()).append("\n");
         }
-        scoredChunks.sort((a, b) -> Double.compare(b.similarity, a.similarity));
-        List<KnowledgeChunk> relevantChunks = new ArrayList<>();
-        for (int i = 0; i < Math.min(10, scoredChunks.size()); i++) {
-            relevantChunks.add(scoredChunks.get(i).chunk);
+        ContextAssembler.AssembledContext context = contextAssembler.assemble(
+            new ArrayList<>(mergedChunks.values()), consolidatedContextMaxTokens);
+        log.debug("Consolidated context: {} of {} unique chunks, {} tokens",
+            context.chunks().size(), mergedChunks.size(), context.tokens());
+        Map<String, Object> geminiResult;
+        try {
+            geminiResult = callAnalysisLlm(
+                context.text(),
+                "Answer every one of the following in its own field:\n" + instructions,
+                "consolidated",
+                "all"
+            );
+        } catch (GeminiApiException e) {
+            // Same outcome as an unparseable reply: every section falls back to its default
+            log.warn("Consolidated analysis call failed: {}", e.getMessage());
+            geminiResult = Map.of();
         }
-        StringBuilder context = new StringBuilder();
-        for (KnowledgeChunk chunk : relevantChunks) {
-            context.append("Source: ").append(chunk.getSourceId()).append("\n");
-            context.append("Type: ").append(chunk.getSourceType()).append("\n");
-            context.append("Content: ").append(chunk.getChunkText()).append("\n\n");
+        Map<String, Object> analysis = new HashMap<>();
+        for (AnalysisSection section : AnalysisSection.values()) {
+            Object value = geminiResult.getOrDefault(section.getResponseField(), section.defaultValue());
+            analysis.put(section.getKey(), value);
+            if (geminiResult.isEmpty()) {
+                incompleteSections.add(section.getKey());
+            }
+            listener.onSection(section, value, geminiResult.isEmpty());
         }
+        return analysis;
+    }
+
+    private Map<String, Object> callAnalysisLlm(String context, String query, String operation, String section) {
         String prompt = String.format(
             "Based on the following context from research papers and video transcripts, analyze the fitness video:\n\n" +
             "Context:\n%s\n\n" +
@@ -238,174 +393,27 @@ public class AnalysisOrchestrationService {
             "- actual_workout: Description of the actual exercises and routine\n" +
             "- scientific_backing: How well the workout is supported by research\n\n" +
             "Query: %s",
-            context.toString(), query
+            context, query
         );
-        String geminiResponse = embeddingService.generateText(prompt);
+        metrics.promptTokens(operation, section, TextChunker.estimateTokens(prompt));
+        String geminiResponse = metrics.observe("llm", operation,
+            () -> llmConcurrencyLimiter.call(() -> geminiClient.generateText(prompt)));
         String cleanJson = extractJsonFromGeminiResponse(geminiResponse);
-        System.out.println("\n===== FINAL ANALYSIS JSON =====\n" + cleanJson + "\n===============================\n");
+        log.debug("Analysis JSON: {}", cleanJson);
         try {
             return objectMapper.readValue(cleanJson, Map.class);
         } catch (Exception e) {
-            System.out.println("Warning: Could not parse Gemini response as JSON. Returning empty map.");
+            metrics.llmParseFailure("read");
+            log.warn("Could not parse Gemini response as JSON, returning empty map: {}", e.getMessage());
             return new HashMap<>();
         }
     }
     
-    private static class ScoredChunk {
-        KnowledgeChunk chunk;
-        double similarity;
-        ScoredChunk(KnowledgeChunk chunk, double similarity) {
-            this.chunk = chunk;
-            this.similarity = similarity;
-        }
-    }
-
-    private double cosineSimilarity(float[] a, float[] b) {
-        double dot = 0.0, normA = 0.0, normB = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            dot += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
-        return dot / (Math.sqrt(normA) * Math.sqrt(normB) + 1e-10);
-    }
-    
-    private String callGeminiApi(String prompt) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        Map<String, Object> requestBody = new HashMap<>();
-        Map<String, Object> content = new HashMap<>();
-        content.put("parts", Arrays.asList(Map.of("text", prompt)));
-        requestBody.put("contents", Arrays.asList(content));
-        
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-        
-        try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(GEMINI_URL + apiKey, request, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> body = response.getBody();
-                List<Map<String, Object>> candidates = (List<Map<String, Object>>) body.get("candidates");
-                if (candidates != null && !candidates.isEmpty()) {
-                    Map<String, Object> candidate = candidates.get(0);
-                    Map<String, Object> content2 = (Map<String, Object>) candidate.get("content");
-                    List<Map<String, Object>> parts = (List<Map<String, Object>>) content2.get("parts");
-                    if (parts != null && !parts.isEmpty()) {
-                        return (String) parts.get(0).get("text");
-                    }
-                }
-            }
-            
-            return "Analysis failed";
-            
-        } catch (Exception e) {
-            return "Error in analysis: " + e.getMessage();
-        }
-    }
-    
-    private List<String> chunkText(String text, int maxChunkSize) {
-        List<String> chunks = new ArrayList<>();
-        String[] sentences = text.split("[.!?]+");
-        
-        StringBuilder currentChunk = new StringBuilder();
-        for (String sentence : sentences) {
-            sentence = sentence.trim();
-            if (sentence.isEmpty()) continue;
-            
-            if (currentChunk.length() + sentence.length() > maxChunkSize) {
-                if (currentChunk.length() > 0) {
-                    chunks.add(currentChunk.toString().trim());
-                    currentChunk = new StringBuilder();
-                }
-            }
-            
-            currentChunk.append(sentence).append(". ");
-        }
-        
-        if (currentChunk.length() > 0) {
-            chunks.add(currentChunk.toString().trim());
-        }
-        
-        return chunks;
-    }
-    
-    private String extractTextFromPdf(String pdfPath) {
-        // Simplified PDF text extraction - in production use Apache PDFBox or similar
-        try {
-            // For now, return a placeholder - you'll need to implement proper PDF parsing
-            return "Sample text from PDF: " + new File(pdfPath).getName();
-        } catch (Exception e) {
-            return "Error extracting text from PDF: " + e.getMessage();
-        }
-    }
-    
     public String extractVideoId(String videoUrl) {
-        Pattern pattern = Pattern.compile("(?:youtube\\.com/watch\\?v=|youtu\\.be/)([a-zA-Z0-9_-]+)");
-        Matcher matcher = pattern.matcher(videoUrl);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        throw new IllegalArgumentException("Invalid YouTube URL: " + videoUrl);
-    }
-    
-    private List<Map<String, String>> parsePoints(String analysis) {
-        // Simplified parsing - in production use more sophisticated parsing
-        List<Map<String, String>> points = new ArrayList<>();
-        String[] lines = analysis.split("\n");
-        
-        for (String line : lines) {
-            if (line.trim().startsWith("-") || line.trim().startsWith("•")) {
-                Map<String, String> point = new HashMap<>();
-                point.put("point", line.trim().substring(1).trim());
-                point.put("evidence_source", "analysis");
-                points.add(point);
-            }
-        }
-        
-        return points;
+        return YouTubeUrls.videoId(videoUrl);
     }
     
-    private Map<String, Object> parseWorkoutPlan(String analysis) {
-        // Simplified parsing - in production use more sophisticated parsing
-        Map<String, Object> workoutPlan = new HashMap<>();
-        List<Map<String, Object>> exercises = new ArrayList<>();
-        
-        String[] lines = analysis.split("\n");
-        for (String line : lines) {
-            if (line.toLowerCase().contains("press") || line.toLowerCase().contains("squat") || 
-                line.toLowerCase().contains("deadlift") || line.toLowerCase().contains("curl")) {
-                Map<String, Object> exercise = new HashMap<>();
-                exercise.put("name", line.trim());
-                exercise.put("sets", 3);
-                exercise.put("reps", "8-12");
-                exercises.add(exercise);
-            }
-        }
-        
-        workoutPlan.put("exercises", exercises);
-        return workoutPlan;
-    }
-
-    private String floatArrayToString(float[] arr) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < arr.length; i++) {
-            sb.append(arr[i]);
-            if (i < arr.length - 1) sb.append(",");
-        }
-        return sb.toString();
-    }
-
-    private float[] stringToFloatArray(String s) {
-        String[] parts = s.split(",");
-        float[] arr = new float[parts.length];
-        for (int i = 0; i < parts.length; i++) {
-            arr[i] = Float.parseFloat(parts[i]);
-        }
-        return arr;
-    }
-
-    private String extractJsonFromGeminiResponse(String response) {
+    String extractJsonFromGeminiResponse(String response) {
         // Remove code block markers if present
         String trimmed = response.trim();
         if (trimmed.startsWith("```json")) {
@@ -422,7 +430,8 @@ public class AnalysisOrchestrationService {
             JsonNode node = objectMapper.readTree(trimmed);
             return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(node);
         } catch (Exception e) {
-            System.out.println("Warning: Could not parse Gemini response as JSON. Returning raw string.");
+            metrics.llmParseFailure("extract");
+            log.warn("Could not parse Gemini response as JSON, returning raw string: {}", e.getMessage());
             return trimmed;
         }
     }
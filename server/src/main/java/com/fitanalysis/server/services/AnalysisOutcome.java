@@ -0,0 +1,14 @@
+package com.fitanalysis.server.services;
+
+import java.util.List;
+
+/**
+ * What an analysis run hands back: the analysis as response-ready JSON, and the sections that failed.
+ * Only complete analyses are stored, so an incomplete one is never served from the cache.
+ */
+public record AnalysisOutcome(AnalysisResultBody body, List<String> incompleteSections) {
+
+    public boolean complete() {
+        return incompleteSections.isEmpty();
+    }
+}
@@ -0,0 +1,16 @@
+package com.fitanalysis.server.services;
+
+/**
+ * Receives progress from a running analysis, e.g. to stream it to the client. Callbacks may arrive
+ * concurrently from the sub-query threads.
+ */
+public interface AnalysisProgressListener {
+
+    AnalysisProgressListener NONE = new AnalysisProgressListener() {};
+
+    /** An ingestion or analysis stage started or finished. */
+    default void onProgress(String stage, String message) {}
+
+    /** A section's value is final; {@code failed} means it fell back to the default. */
+    default void onSection(AnalysisSection section, Object value, boolean failed) {}
+}
@@ -0,0 +1,76 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.AnalysisResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A stored analysis ready to be written to a response as-is: its JSON as UTF-8 bytes, the same bytes
+ * gzipped, and a strong ETag over the JSON. The gzip variant has its own tag ({@code -gzip} suffix), as a
+ * strong validator must differ between content codings.
+ */
+public record AnalysisResultBody(byte[] json, byte[] gzip, String etag) {
+
+    public String gzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /** True if an If-None-Match header value names either representation of this body. */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String gzipEtag = gzipEtag();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // Weak comparison, as If-None-Match requires
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static AnalysisResultBody encode(String analysisJson) {
+        byte[] json = analysisJson.getBytes(StandardCharsets.UTF_8);
+        return new AnalysisResultBody(json, gzip(json), etag(json));
+    }
+
+    /** Uses the gzip and ETag stored with the row, computing them only for rows saved before they were. */
+    public static AnalysisResultBody of(AnalysisResult result) {
+        if (result.getAnalysisGzip() == null || result.getEtag() == null) {
+            return encode(result.getAnalysisJson());
+        }
+        return new AnalysisResultBody(result.getAnalysisJson().getBytes(StandardCharsets.UTF_8),
+                result.getAnalysisGzip(), result.getEtag());
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
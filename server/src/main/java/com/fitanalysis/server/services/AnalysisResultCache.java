@@ -0,0 +1,121 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.AnalysisResult;
+import com.fitanalysis.server.repository.AnalysisResultRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Front door for finished analyses: a bounded in-memory LRU over {@link AnalysisResult} backed by the
+ * analysis_result table, plus single-flight coalescing so concurrent requests for the same video share
+ * one computation instead of each running the full pipeline. Each cached result keeps its
+ * {@link AnalysisResultBody}, so serving it is a byte copy.
+ */
+@Service
+public class AnalysisResultCache {
+
+    @Autowired
+    private AnalysisResultRepository analysisResultRepository;
+
+    private final Map<String, Cached> memory;
+    private final Map<String, CompletableFuture<AnalysisOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public AnalysisResultCache(@Value("${analysis.result-cache.max-entries:1000}") int maxEntries) {
+        this.memory = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<AnalysisResult> get(String videoId) {
+        return lookup(videoId).map(Cached::result);
+    }
+
+    /** The stored analysis for {@code videoId} in its response-ready form. */
+    public Optional<AnalysisResultBody> getBody(String videoId) {
+        return lookup(videoId).map(Cached::body);
+    }
+
+    public void put(AnalysisResult result) {
+        store(result);
+    }
+
+    private Optional<Cached> lookup(String videoId) {
+        synchronized (memory) {
+            Cached cached = memory.get(videoId);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+        Optional<AnalysisResult> stored = analysisResultRepository.findByVideoId(videoId);
+        if (stored.isPresent()) {
+            databaseHits.incrementAndGet();
+            return Optional.of(store(stored.get()));
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    // Encoded outside the lock; only rows saved before the gzip column existed need compressing here
+    private Cached store(AnalysisResult result) {
+        Cached cached = new Cached(result, AnalysisResultBody.of(result));
+        synchronized (memory) {
+            memory.put(result.getVideoId(), cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Runs {@code computation} for {@code videoId} unless one is already running, in which case the caller
+     * waits for and shares that result. Failures propagate to every waiter and are not remembered.
+     */
+    public AnalysisOutcome computeOnce(String videoId, Supplier<AnalysisOutcome> computation) {
+        CompletableFuture<AnalysisOutcome> mine = new CompletableFuture<>();
+        CompletableFuture<AnalysisOutcome> running = inFlight.putIfAbsent(videoId, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            AnalysisOutcome result = computation.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(videoId, mine);
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (memory) {
+            return new Stats(memoryHits.get(), databaseHits.get(), misses.get(), coalesced.get(), memory.size(), inFlight.size());
+        }
+    }
+
+    private record Cached(AnalysisResult result, AnalysisResultBody body) {}
+
+    public record Stats(long memoryHits, long databaseHits, long misses, long coalesced, int entries, int inFlight) {}
+}
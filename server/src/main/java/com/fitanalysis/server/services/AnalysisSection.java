@@ -0,0 +1,36 @@
+package com.fitanalysis.server.services;
+
+import java.util.ArrayList;
+
+/**
+ * The analytical sub-queries run for every video. Each one keeps a single field of the LLM response
+ * ({@code responseField}) and stores it in the analysis map under {@code key}.
+ */
+public enum AnalysisSection {
+    GOOD_POINTS("good_points", "Find good points and positive aspects mentioned in the content", "good_points", true),
+    BAD_POINTS("bad_points", "Find bad points, criticisms, or negative aspects mentioned in the content", "bad_points", true),
+    WORKOUT_PLAN("workout_plan", "Extract workout plan, exercises, sets, and reps mentioned", "actual_workout", false),
+    CONCLUSION("conclusion", "Write a conclusion summarizing the overall assessment", "conclusion", false),
+    SCIENTIFIC_BACKING("scientific_backing", "How well is the workout supported by research?", "scientific_backing", false);
+
+    private final String key;
+    private final String query;
+    private final String responseField;
+    private final boolean list;
+
+    AnalysisSection(String key, String query, String responseField, boolean list) {
+        this.key = key;
+        this.query = query;
+        this.responseField = responseField;
+        this.list = list;
+    }
+
+    public String getKey() { return key; }
+    public String getQuery() { return query; }
+    public String getResponseField() { return responseField; }
+
+    /** Value used when the LLM response lacks this section or the sub-query failed. */
+    public Object defaultValue() {
+        return list ? new ArrayList<>() : "";
+    }
+}
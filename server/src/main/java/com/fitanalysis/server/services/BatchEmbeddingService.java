@@ -0,0 +1,107 @@
+package com.fitanalysis.server.services;
+
+import io.micrometer.observation.Observation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Embeds many texts at once for the ingestion paths. Inputs are split into batches of
+ * {@code embedding.batch-size} (at most Gemini's limit of {@value GeminiClient#MAX_EMBED_BATCH}), each sent as
+ * one batchEmbedContents request; the batches are in flight together, up to {@code embedding.max-in-flight},
+ * so a source costs roughly chunks / batch-size round trips. Texts already in the {@link EmbeddingCache},
+ * and repeats within the input, are embedded only once.
+ */
+@Service
+public class BatchEmbeddingService {
+
+    @Autowired
+    private GeminiClient geminiClient;
+
+    @Autowired
+    private EmbeddingCache embeddingCache;
+
+    @Autowired
+    private ConcurrencyLimiter embeddingConcurrencyLimiter;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${embedding.batch-size:32}")
+    private int batchSize;
+
+    /** Returns one embedding per input text, in input order. Cached texts are not re-embedded. */
+    public List<float[]> getEmbeddings(List<String> texts) {
+        Map<String, float[]> embeddingsByText = new HashMap<>(embeddingCache.getCached(texts));
+        List<String> missing = new ArrayList<>(new LinkedHashSet<>(texts));
+        missing.removeAll(embeddingsByText.keySet());
+        int step = Math.max(1, Math.min(batchSize, GeminiClient.MAX_EMBED_BATCH));
+        List<List<String>> batches = new ArrayList<>();
+        List<CompletableFuture<List<float[]>>> pending = new ArrayList<>();
+        try {
+            for (int from = 0; from < missing.size(); from += step) {
+                List<String> batch = missing.subList(from, Math.min(from + step, missing.size()));
+                batches.add(batch);
+                pending.add(embedBatch(batch));
+            }
+            for (int i = 0; i < batches.size(); i++) {
+                Map<String, float[]> computed = new HashMap<>();
+                List<String> batch = batches.get(i);
+                List<float[]> vectors = join(pending.get(i));
+                for (int j = 0; j < batch.size(); j++) {
+                    computed.put(batch.get(j), vectors.get(j));
+                }
+                embeddingCache.putAll(computed);
+                embeddingsByText.putAll(computed);
+            }
+        } finally {
+            // A failed batch fails the whole call; don't leave the rest running (or retrying) for nothing
+            pending.forEach(call -> call.cancel(true));
+        }
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(embeddingsByText.get(text));
+        }
+        return embeddings;
+    }
+
+    // Holds an embedding slot from before the request until its response (or failure) arrives
+    private CompletableFuture<List<float[]>> embedBatch(List<String> batch) {
+        ConcurrencyLimiter.Permit permit;
+        try {
+            permit = embeddingConcurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an embedding slot", e);
+        }
+        Observation observation = metrics.start("embedding", "batch");
+        CompletableFuture<List<float[]>> call = geminiClient.embedBatchAsync(batch);
+        call.whenComplete((vectors, error) -> {
+            permit.close();
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.stop();
+        });
+        return call;
+    }
+
+    private static List<float[]> join(CompletableFuture<List<float[]>> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
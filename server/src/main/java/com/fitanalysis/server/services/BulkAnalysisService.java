@@ -0,0 +1,187 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.AnalysisJob;
+import com.fitanalysis.server.models.BulkAnalysisRun;
+import com.fitanalysis.server.models.JobStatus;
+import com.fitanalysis.server.repository.BulkAnalysisRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bulk analysis of a playlist or channel. Submitting persists the run; its videos are listed with one flat
+ * yt-dlp call on the job executor and each becomes an ordinary analysis job tagged with the run id, so the
+ * jobs' own persistence, recovery and per-job error handling make a run resumable and keep one bad video from
+ * affecting the rest. yt-dlp processes, embedding calls and LLM calls each have their own concurrency cap
+ * (see ExecutorConfig), shared with interactive analyses.
+ */
+@Service
+public class BulkAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkAnalysisService.class);
+
+    @Autowired
+    private BulkAnalysisRunRepository bulkAnalysisRunRepository;
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Autowired
+    private YtDlpService ytDlpService;
+
+    @Autowired
+    private ExecutorService analysisJobExecutor;
+
+    // Run ids whose listing is handed to the executor, so the recovery sweep doesn't list them twice
+    private final Set<String> listing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @throws IllegalArgumentException if the URL is not a YouTube playlist or channel URL
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public BulkAnalysisRun submit(String url, AnalysisMode mode) {
+        if (url == null || !YouTubeUrls.isCollection(url)) {
+            throw new IllegalArgumentException("Not a YouTube playlist or channel URL: " + url);
+        }
+        BulkAnalysisRun run = bulkAnalysisRunRepository.save(new BulkAnalysisRun(UUID.randomUUID().toString(), url, mode.name()));
+        try {
+            scheduleListing(run.getId());
+        } catch (RejectedExecutionException e) {
+            bulkAnalysisRunRepository.delete(run);
+            throw e;
+        }
+        return run;
+    }
+
+    public Optional<BulkAnalysisRun> getRun(String runId) {
+        return bulkAnalysisRunRepository.findById(runId);
+    }
+
+    /**
+     * Progress of a run: job counts by status, failed videos with their errors, and throughput in videos per
+     * hour over the time since submission (until the last job finished, once the run is done).
+     */
+    public Map<String, Object> report(BulkAnalysisRun run) {
+        List<AnalysisJob> jobs = analysisJobService.getBulkJobs(run.getId());
+        Map<JobStatus, Integer> counts = new EnumMap<>(JobStatus.class);
+        for (JobStatus status : JobStatus.values()) {
+            counts.put(status, 0);
+        }
+        List<Map<String, Object>> failures = new ArrayList<>();
+        LocalDateTime lastFinished = run.getCreatedAt();
+        for (AnalysisJob job : jobs) {
+            counts.merge(job.getStatus(), 1, Integer::sum);
+            if (job.getStatus() == JobStatus.SUCCEEDED || job.getStatus() == JobStatus.FAILED) {
+                if (job.getUpdatedAt() != null && job.getUpdatedAt().isAfter(lastFinished)) {
+                    lastFinished = job.getUpdatedAt();
+                }
+            }
+            if (job.getStatus() == JobStatus.FAILED) {
+                Map<String, Object> failure = new LinkedHashMap<>();
+                failure.put("jobId", job.getId());
+                failure.put("videoId", job.getVideoId());
+                failure.put("error", job.getError());
+                failures.add(failure);
+            }
+        }
+        int done = counts.get(JobStatus.SUCCEEDED) + counts.get(JobStatus.FAILED);
+        boolean finished = run.getStatus() == JobStatus.FAILED
+            || (run.getStatus() == JobStatus.RUNNING && done == jobs.size());
+        Duration elapsed = Duration.between(run.getCreatedAt(), finished ? lastFinished : LocalDateTime.now());
+        double hours = elapsed.toMillis() / 3_600_000.0;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", run.getId());
+        report.put("url", run.getSourceUrl());
+        report.put("mode", run.getAnalysisMode());
+        report.put("status", run.getStatus());
+        report.put("finished", finished);
+        report.put("videoCount", run.getVideoCount());
+        report.put("jobs", counts);
+        report.put("elapsedSeconds", elapsed.toSeconds());
+        report.put("videosPerHour", hours > 0 ? done / hours : 0.0);
+        report.put("createdAt", run.getCreatedAt());
+        report.put("updatedAt", run.getUpdatedAt());
+        if (run.getError() != null) {
+            report.put("error", run.getError());
+        }
+        report.put("failures", failures);
+        return report;
+    }
+
+    // Runs submitted but not listed before a restart; the listing is idempotent, so a run interrupted
+    // half-way through creating its jobs is simply listed again
+    @Scheduled(initialDelayString = "${analysis.jobs.recovery-initial-delay-ms:5000}",
+               fixedDelayString = "${analysis.jobs.recovery-interval-ms:30000}")
+    public void scheduleRecoveredRuns() {
+        for (BulkAnalysisRun run : bulkAnalysisRunRepository.findByStatusOrderByCreatedAt(JobStatus.QUEUED)) {
+            if (listing.contains(run.getId())) {
+                continue;
+            }
+            try {
+                scheduleListing(run.getId());
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void scheduleListing(String runId) {
+        if (!listing.add(runId)) {
+            return;
+        }
+        try {
+            analysisJobExecutor.execute(() -> listVideos(runId));
+        } catch (RejectedExecutionException e) {
+            listing.remove(runId);
+            throw e;
+        }
+    }
+
+    private void listVideos(String runId) {
+        try {
+            BulkAnalysisRun run = bulkAnalysisRunRepository.findById(runId).orElse(null);
+            if (run == null || run.getStatus() != JobStatus.QUEUED) {
+                return;
+            }
+            try {
+                List<String> videoIds = ytDlpService.listVideoIds(run.getSourceUrl());
+                int created = analysisJobService.submitBulk(runId, videoIds, AnalysisMode.valueOf(run.getAnalysisMode()));
+                log.info("Bulk run {}: {} videos in {}, {} new jobs", runId, videoIds.size(), run.getSourceUrl(), created);
+                run.setVideoCount(videoIds.size());
+                updateStatus(run, JobStatus.RUNNING, null);
+            } catch (InterruptedException e) {
+                // Shutting down; the run stays QUEUED and is listed again after the restart
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Bulk run {}: listing {} failed", runId, run.getSourceUrl(), e);
+                updateStatus(run, JobStatus.FAILED, e.getMessage());
+            }
+        } finally {
+            listing.remove(runId);
+        }
+    }
+
+    private void updateStatus(BulkAnalysisRun run, JobStatus status, String error) {
+        run.setStatus(status);
+        run.setError(error);
+        run.setUpdatedAt(LocalDateTime.now());
+        bulkAnalysisRunRepository.save(run);
+    }
+}
@@ -0,0 +1,106 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.PaperManifestEntry;
+import com.fitanalysis.server.models.SourceType;
+import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import com.fitanalysis.server.repository.PaperManifestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ChunkPersistenceService {
+
+    @Autowired
+    private KnowledgeChunkRepository knowledgeChunkRepository;
+
+    @Autowired
+    private PaperManifestRepository paperManifestRepository;
+
+    @Autowired
+    private VectorIndexService vectorIndexService;
+
+    @Autowired
+    private PaperManifest paperManifest;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    // One transaction with JDBC-batched inserts, then the saved rows go into the resident index
+    public void saveChunks(List<KnowledgeChunk> chunkEntities) {
+        List<KnowledgeChunk> saved = metrics.observe("persistence", "save_chunks",
+            () -> knowledgeChunkRepository.saveAll(chunkEntities));
+        for (KnowledgeChunk chunk : saved) {
+            vectorIndexService.add(chunk, chunk.getEmbedding());
+        }
+        countIngested(saved);
+    }
+
+    /**
+     * Atomically swaps the chunks stored under {@code staleSourceIds} for {@code chunkEntities} and records
+     * the manifest entry. The resident index is only touched once the transaction has committed, so a
+     * failed replace leaves both the table and the index on the old chunks.
+     */
+    public void replaceChunks(List<String> staleSourceIds, List<KnowledgeChunk> chunkEntities, PaperManifestEntry manifestEntry) {
+        List<Long> removedIds = new ArrayList<>();
+        List<KnowledgeChunk> saved = metrics.observe("persistence", "replace_chunks", () -> transactionTemplate.execute(status -> {
+            for (String sourceId : staleSourceIds) {
+                removedIds.addAll(knowledgeChunkRepository.findIdsBySourceId(sourceId));
+                knowledgeChunkRepository.deleteBySourceId(sourceId);
+            }
+            List<KnowledgeChunk> inserted = knowledgeChunkRepository.saveAll(chunkEntities);
+            paperManifestRepository.save(manifestEntry);
+            return inserted;
+        }));
+        vectorIndexService.remove(RetrievalPartition.papers(), removedIds);
+        for (KnowledgeChunk chunk : saved) {
+            vectorIndexService.add(chunk, chunk.getEmbedding());
+        }
+        paperManifest.remember(manifestEntry);
+        countIngested(saved);
+    }
+
+    /** Deletes every chunk stored under {@code sourceId}, such as the batches of a paper whose ingestion didn't finish. */
+    public void deleteChunks(String sourceId) {
+        List<Long> removedIds = new ArrayList<>();
+        metrics.observe("persistence", "delete_chunks", () -> transactionTemplate.executeWithoutResult(status -> {
+            removedIds.addAll(knowledgeChunkRepository.findIdsBySourceId(sourceId));
+            knowledgeChunkRepository.deleteBySourceId(sourceId);
+        }));
+        vectorIndexService.remove(RetrievalPartition.papers(), removedIds);
+    }
+
+    /**
+     * Deletes the manifest entry of a paper that is gone from disk and, when no other path shares its
+     * content, its chunks. As with {@link #replaceChunks}, the index follows only after the commit.
+     */
+    public void removePaper(PaperManifestEntry manifestEntry, boolean deleteChunks) {
+        List<Long> removedIds = new ArrayList<>();
+        metrics.observe("persistence", "remove_paper", () -> transactionTemplate.executeWithoutResult(status -> {
+            if (deleteChunks) {
+                removedIds.addAll(knowledgeChunkRepository.findIdsBySourceId(manifestEntry.getSourceId()));
+                knowledgeChunkRepository.deleteBySourceId(manifestEntry.getSourceId());
+            }
+            paperManifestRepository.deleteById(manifestEntry.getPath());
+        }));
+        vectorIndexService.remove(RetrievalPartition.papers(), removedIds);
+        paperManifest.forget(manifestEntry);
+    }
+
+    private void countIngested(List<KnowledgeChunk> saved) {
+        Map<SourceType, Integer> counts = new EnumMap<>(SourceType.class);
+        for (KnowledgeChunk chunk : saved) {
+            counts.merge(chunk.getSourceType(), 1, Integer::sum);
+        }
+        counts.forEach(metrics::chunksIngested);
+    }
+}
@@ -0,0 +1,121 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.SourceType;
+import com.fitanalysis.server.models.VectorConverter;
+import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-k chunk retrieval within a {@link RetrievalPartition}. {@code retrieval.mode=memory} scores against the
+ * resident {@link VectorIndexService}; {@code retrieval.mode=database} pushes the similarity search into
+ * Postgres so only the top-k rows are fetched.
+ */
+@Service
+public class ChunkRetrievalService {
+
+    @Autowired
+    private VectorIndexService vectorIndexService;
+
+    @Autowired
+    private KnowledgeChunkRepository knowledgeChunkRepository;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${retrieval.mode:memory}")
+    private String retrievalMode;
+
+    @Value("${retrieval.quota.video:5}")
+    private int videoQuota;
+
+    @Value("${retrieval.quota.papers:5}")
+    private int paperQuota;
+
+    private final VectorConverter vectorConverter = new VectorConverter();
+
+    /**
+     * Context for one analysis query: the best {@code retrieval.quota.video} chunks of the video being analysed
+     * plus the best {@code retrieval.quota.papers} research-paper chunks, ordered by similarity. Transcripts of
+     * other videos are never scored.
+     */
+    public List<ScoredChunk> retrieveForVideo(float[] queryEmbedding, String videoId) {
+        List<ScoredChunk> scoredChunks = new ArrayList<>(retrieve(queryEmbedding, RetrievalPartition.video(videoId), videoQuota));
+        scoredChunks.addAll(retrieve(queryEmbedding, RetrievalPartition.papers(), paperQuota));
+        scoredChunks.sort(Comparator.comparingDouble(ScoredChunk::getSimilarity).reversed());
+        return scoredChunks;
+    }
+
+    public List<ScoredChunk> retrieve(float[] queryEmbedding, RetrievalPartition partition, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        if ("database".equalsIgnoreCase(retrievalMode)) {
+            return metrics.observe("retrieval", "database", () -> retrieveFromDatabase(queryEmbedding, partition, k));
+        }
+        return metrics.observe("retrieval", "memory", () -> retrieveFromIndex(queryEmbedding, partition, k));
+    }
+
+    private List<ScoredChunk> retrieveFromIndex(float[] queryEmbedding, RetrievalPartition partition, int k) {
+        // Score against the partition's resident index, then load only the winning rows
+        int shortlist = vectorIndexService.shortlistSize(partition, k);
+        List<VectorIndex.SearchHit> hits = vectorIndexService.search(partition, queryEmbedding, shortlist);
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (VectorIndex.SearchHit hit : hits) {
+            ids.add(hit.chunkId());
+        }
+        Map<Long, KnowledgeChunk> chunksById = new HashMap<>();
+        for (KnowledgeChunk chunk : knowledgeChunkRepository.findAllById(ids)) {
+            chunksById.put(chunk.getId(), chunk);
+        }
+        List<ScoredChunk> scoredChunks = new ArrayList<>(hits.size());
+        for (VectorIndex.SearchHit hit : hits) {
+            KnowledgeChunk chunk = chunksById.get(hit.chunkId());
+            if (chunk != null) {
+                scoredChunks.add(new ScoredChunk(chunk, hit.score()));
+            }
+        }
+        return shortlist > k ? rerank(queryEmbedding, scoredChunks, k) : scoredChunks;
+    }
+
+    // Second phase for quantized indexes: exact cosine against the embeddings the shortlist rows came with
+    private static List<ScoredChunk> rerank(float[] queryEmbedding, List<ScoredChunk> shortlist, int k) {
+        List<ScoredChunk> rescored = new ArrayList<>(shortlist.size());
+        for (ScoredChunk candidate : shortlist) {
+            float[] embedding = candidate.getChunk().getEmbedding();
+            double similarity = embedding == null ? 0.0
+                    : VectorMath.cosineSimilarity(queryEmbedding, embedding, 0, embedding.length);
+            rescored.add(new ScoredChunk(candidate.getChunk(), similarity));
+        }
+        rescored.sort(Comparator.comparingDouble(ScoredChunk::getSimilarity).reversed());
+        return rescored.size() > k ? new ArrayList<>(rescored.subList(0, k)) : rescored;
+    }
+
+    private List<ScoredChunk> retrieveFromDatabase(float[] queryEmbedding, RetrievalPartition partition, int k) {
+        String queryVector = vectorConverter.convertToDatabaseColumn(queryEmbedding);
+        List<KnowledgeChunk> nearest;
+        if (partition.sourceId() != null) {
+            nearest = knowledgeChunkRepository.findNearestChunksBySourceId(queryVector, partition.sourceId(), k);
+        } else if (partition.sourceType() == SourceType.RESEARCH_PAPER) {
+            nearest = knowledgeChunkRepository.findNearestPaperChunks(queryVector, k);
+        } else {
+            throw new IllegalArgumentException("Unsupported retrieval partition: " + partition);
+        }
+        List<ScoredChunk> scoredChunks = new ArrayList<>(nearest.size());
+        for (KnowledgeChunk chunk : nearest) {
+            float[] embedding = chunk.getEmbedding();
+            double similarity = embedding == null ? 0.0
+                    : VectorMath.cosineSimilarity(queryEmbedding, embedding, 0, embedding.length);
+            scoredChunks.add(new ScoredChunk(chunk, similarity));
+        }
+        return scoredChunks;
+    }
+}
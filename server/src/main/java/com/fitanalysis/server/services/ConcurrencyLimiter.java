@@ -0,0 +1,41 @@
+package com.fitanalysis.server.services;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many calls to one kind of resource are in flight across all concurrent analyses, so fan-out stays
+ * under a provider's rate limits or a machine's process budget. One instance per resource is defined in
+ * ExecutorConfig: LLM calls ({@code analysis.llm.max-in-flight}), embedding calls
+ * ({@code embedding.max-in-flight}) and yt-dlp processes ({@code ytdlp.max-processes}).
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final Semaphore permits;
+
+    public ConcurrencyLimiter(String name, int maxInFlight) {
+        this.name = name;
+        this.permits = new Semaphore(Math.max(1, maxInFlight), true);
+    }
+
+    public <T> T call(Supplier<T> work) {
+        try (Permit permit = acquire()) {
+            return work.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + name + " slot", e);
+        }
+    }
+
+    /** Blocks for a slot; closing the permit gives it back. For work that throws checked exceptions. */
+    public Permit acquire() throws InterruptedException {
+        permits.acquire();
+        return permits::release;
+    }
+
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
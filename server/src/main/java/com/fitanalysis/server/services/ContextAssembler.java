@@ -0,0 +1,83 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the retrieved-context part of an analysis prompt within a token budget. Candidates are taken in
+ * maximal-marginal-relevance order: each pick maximises {@code lambda * relevance - (1 - lambda) * similarity
+ * to the closest chunk already picked}, so overlapping passages (adjacent auto-caption chunks, the same
+ * finding in two papers) give way to ones that add something. A candidate at least
+ * {@code analysis.context.duplicate-similarity} similar to a picked chunk is dropped outright, and one that
+ * does not fit the remaining budget is skipped in favour of smaller ones.
+ */
+@Component
+public class ContextAssembler {
+
+    @Value("${analysis.context.mmr-lambda:0.7}")
+    private double lambda;
+
+    @Value("${analysis.context.duplicate-similarity:0.95}")
+    private double duplicateSimilarity;
+
+    public record AssembledContext(String text, int tokens, List<KnowledgeChunk> chunks) {}
+
+    /** Context from {@code candidates} of at most {@code maxTokens} estimated tokens, most useful chunk first. */
+    public AssembledContext assemble(List<ScoredChunk> candidates, int maxTokens) {
+        int n = candidates.size();
+        String[] entries = new String[n];
+        int[] costs = new int[n];
+        float[][] unitEmbeddings = new float[n][];
+        for (int i = 0; i < n; i++) {
+            KnowledgeChunk chunk = candidates.get(i).getChunk();
+            entries[i] = "Source: " + chunk.getSourceId() + "\n"
+                + "Type: " + chunk.getSourceType() + "\n"
+                + "Content: " + chunk.getChunkText() + "\n\n";
+            costs[i] = TextChunker.estimateTokens(entries[i]);
+            float[] embedding = chunk.getEmbedding();
+            unitEmbeddings[i] = embedding == null || embedding.length == 0 ? null : VectorMath.normalizedCopy(embedding);
+        }
+        // Similarity of each candidate to its closest picked chunk; nothing is picked yet
+        double[] redundancy = new double[n];
+        boolean[] considered = new boolean[n];
+        StringBuilder text = new StringBuilder();
+        List<KnowledgeChunk> picked = new ArrayList<>();
+        int tokens = 0;
+        while (true) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (considered[i]) continue;
+                double score = lambda * candidates.get(i).getSimilarity() - (1 - lambda) * redundancy[i];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            considered[best] = true;
+            if (redundancy[best] >= duplicateSimilarity || tokens + costs[best] > maxTokens) {
+                continue;
+            }
+            text.append(entries[best]);
+            tokens += costs[best];
+            picked.add(candidates.get(best).getChunk());
+            if (unitEmbeddings[best] == null) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                if (!considered[i] && unitEmbeddings[i] != null && unitEmbeddings[i].length == unitEmbeddings[best].length) {
+                    double similarity = VectorMath.dot(unitEmbeddings[i], unitEmbeddings[best], 0, unitEmbeddings[i].length);
+                    redundancy[i] = Math.max(redundancy[i], similarity);
+                }
+            }
+        }
+        return new AssembledContext(text.toString(), tokens, picked);
+    }
+}
@@ -0,0 +1,231 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.EmbeddingCacheEntry;
+import com.fitanalysis.server.repository.EmbeddingCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of embeddings keyed by SHA-256 of the model id plus the input text.
+ * The memory tier is an LRU bounded by {@code embedding.cache.max-bytes} of vector data; the optional
+ * Postgres tier ({@code embedding.cache.persistent.enabled}) survives restarts and is shared by instances.
+ * Returned arrays are shared with the cache and must not be modified.
+ */
+@Service
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private ConcurrencyLimiter embeddingConcurrencyLimiter;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private EmbeddingCacheRepository embeddingCacheRepository;
+
+    @Value("${embedding.model-id:default}")
+    private String modelId;
+
+    @Value("${embedding.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${embedding.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+
+    private final LinkedHashMap<String, float[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        for (AnalysisSection section : AnalysisSection.values()) {
+            try {
+                getEmbedding(section.getQuery());
+            } catch (Exception e) {
+                log.warn("Could not pre-warm embedding for query \"{}\": {}", section.getQuery(), e.getMessage());
+            }
+        }
+        log.info("Embedding cache pre-warmed: {}", getStats());
+    }
+
+    public float[] getEmbedding(String text) {
+        String key = key(text);
+        float[] cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        misses.incrementAndGet();
+        metrics.cacheMiss("embedding");
+        float[] embedding = metrics.observe("embedding", "query",
+            () -> embeddingConcurrencyLimiter.call(() -> embeddingService.getEmbedding(text)));
+        store(key, embedding);
+        return embedding;
+    }
+
+    /** Cached embeddings for the given texts; texts missing from both tiers are absent from the result. */
+    public Map<String, float[]> getCached(Collection<String> texts) {
+        Map<String, float[]> found = new HashMap<>();
+        Map<String, String> missingByKey = new HashMap<>();
+        for (String text : texts) {
+            String key = key(text);
+            float[] cached = lookupMemory(key);
+            if (cached != null) {
+                found.put(text, cached);
+            } else {
+                missingByKey.put(key, text);
+            }
+        }
+        if (persistentEnabled && !missingByKey.isEmpty()) {
+            for (EmbeddingCacheEntry entry : embeddingCacheRepository.findAllById(missingByKey.keySet())) {
+                String text = missingByKey.remove(entry.getContentHash());
+                persistentHits.incrementAndGet();
+                metrics.cacheHit("embedding");
+                putMemory(entry.getContentHash(), entry.getEmbedding());
+                found.put(text, entry.getEmbedding());
+            }
+        }
+        misses.addAndGet(missingByKey.size());
+        metrics.cacheMisses("embedding", missingByKey.size());
+        return found;
+    }
+
+    public void putAll(Map<String, float[]> embeddingsByText) {
+        List<EmbeddingCacheEntry> entries = new ArrayList<>(embeddingsByText.size());
+        for (Map.Entry<String, float[]> e : embeddingsByText.entrySet()) {
+            String key = key(e.getKey());
+            putMemory(key, e.getValue());
+            entries.add(new EmbeddingCacheEntry(key, modelId, e.getValue()));
+        }
+        if (persistentEnabled && !entries.isEmpty()) {
+            persist(entries);
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (memory) {
+            return new Stats(memoryHits.get(), persistentHits.get(), misses.get(), evictions.get(), memory.size(), memoryBytes);
+        }
+    }
+
+    private float[] lookup(String key) {
+        float[] cached = lookupMemory(key);
+        if (cached != null || !persistentEnabled) {
+            return cached;
+        }
+        EmbeddingCacheEntry entry = embeddingCacheRepository.findById(key).orElse(null);
+        if (entry == null) {
+            return null;
+        }
+        persistentHits.incrementAndGet();
+        metrics.cacheHit("embedding");
+        putMemory(key, entry.getEmbedding());
+        return entry.getEmbedding();
+    }
+
+    private float[] lookupMemory(String key) {
+        float[] cached;
+        synchronized (memory) {
+            cached = memory.get(key);
+        }
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            metrics.cacheHit("embedding");
+        }
+        return cached;
+    }
+
+    private void store(String key, float[] embedding) {
+        putMemory(key, embedding);
+        if (persistentEnabled) {
+            persist(List.of(new EmbeddingCacheEntry(key, modelId, embedding)));
+        }
+    }
+
+    // New entries are plain inserts, batched by Hibernate. Another instance (or a concurrent ingestion) may have
+    // stored some of the same keys first; those are dropped and the rest inserted again.
+    private void persist(List<EmbeddingCacheEntry> entries) {
+        try {
+            embeddingCacheRepository.saveAll(entries);
+        } catch (DataIntegrityViolationException e) {
+            Set<String> stored = new HashSet<>();
+            for (EmbeddingCacheEntry entry : embeddingCacheRepository.findAllById(
+                    entries.stream().map(EmbeddingCacheEntry::getContentHash).toList())) {
+                stored.add(entry.getContentHash());
+            }
+            List<EmbeddingCacheEntry> rest = new ArrayList<>();
+            for (EmbeddingCacheEntry entry : entries) {
+                if (!stored.contains(entry.getContentHash())) {
+                    rest.add(new EmbeddingCacheEntry(entry.getContentHash(), entry.getModelId(), entry.getEmbedding()));
+                }
+            }
+            try {
+                embeddingCacheRepository.saveAll(rest);
+            } catch (DataIntegrityViolationException again) {
+                log.debug("Skipped caching {} embeddings stored concurrently: {}", rest.size(), again.getMessage());
+            }
+        }
+    }
+
+    private void putMemory(String key, float[] embedding) {
+        synchronized (memory) {
+            float[] previous = memory.put(key, embedding);
+            if (previous != null) {
+                memoryBytes -= sizeOf(previous);
+            }
+            memoryBytes += sizeOf(embedding);
+            Iterator<Map.Entry<String, float[]>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                memoryBytes -= sizeOf(eldest.next().getValue());
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static long sizeOf(float[] embedding) {
+        return (long) embedding.length * Float.BYTES;
+    }
+
+    private String key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Stats(long memoryHits, long persistentHits, long misses, long evictions, int entries, long bytes) {}
+}
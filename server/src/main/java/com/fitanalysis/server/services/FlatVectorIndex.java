@@ -0,0 +1,123 @@
+package com.fitanalysis.server.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact nearest-neighbour index over chunk embeddings.
+ * All vectors live in one contiguous float[] (row i starts at i * dimension) with a parallel
+ * long[] of chunk ids, so a search is a linear scan over primitives with no per-row objects.
+ * Rows are normalised when added, so scoring a row is a single dot product.
+ */
+public class FlatVectorIndex implements VectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int dimension;
+    private int size;
+    private long[] ids = new long[0];
+    private float[] vectors = new float[0];
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    @Override
+    public void add(long id, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected embedding of dimension " + dimension + " but got " + vector.length);
+            }
+            if (rowById.containsKey(id)) {
+                // Already indexed, e.g. saved by ingestion while the startup load was running
+                return;
+            }
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            rowById.put(id, size);
+            System.arraycopy(vector, 0, vectors, size * dimension, dimension);
+            VectorMath.normalize(vectors, size * dimension, dimension);
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return;
+            }
+            // Move the last row into the hole so the storage stays dense
+            int last = size - 1;
+            if (row != last) {
+                ids[row] = ids[last];
+                System.arraycopy(vectors, last * dimension, vectors, row * dimension, dimension);
+                rowById.put(ids[row], row);
+            }
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchHit> search(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0) {
+                return Collections.emptyList();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException("Expected query of dimension " + dimension + " but got " + query.length);
+            }
+            float[] unitQuery = VectorMath.normalizedCopy(query);
+            TopK top = new TopK(Math.min(k, size));
+            for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+                float score = VectorMath.dot(unitQuery, vectors, offset, dimension);
+                if (score > top.threshold()) {
+                    top.offer(score, row);
+                }
+            }
+            top.sortDescending();
+            List<SearchHit> hits = new ArrayList<>(top.size());
+            for (int i = 0; i < top.size(); i++) {
+                hits.add(new SearchHit(ids[top.row(i)], top.score(i)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, ids.length);
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        vectors = Arrays.copyOf(vectors, capacity * dimension);
+    }
+}
@@ -0,0 +1,17 @@
+package com.fitanalysis.server.services;
+
+/** A Gemini call that failed for good: retries exhausted, deadline passed, circuit open or a non-retryable response. */
+public class GeminiApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public GeminiApiException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    /** HTTP status of the last response, or -1 if none was received. */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,325 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking client for the Gemini REST API on the shared {@code upstreamHttpClient}. Every call has a
+ * deadline ({@code gemini.http.deadline-ms}) that bounds all of its attempts together; 429, 5xx, timeouts and
+ * I/O errors are retried up to {@code gemini.http.max-attempts} times with full-jitter exponential backoff
+ * (or the server's Retry-After). Consecutive failures open a circuit breaker so a struggling upstream is not
+ * hammered, and {@code gemini.http.hedge-after-ms} optionally sends a second copy of an attempt that has not
+ * answered in time. {@code gemini.base-url} can point at a local stub server.
+ */
+@Component
+public class GeminiClient {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiClient.class);
+
+    private static final String METRICS_CLIENT = "gemini";
+
+    @Autowired
+    private HttpClient upstreamHttpClient;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${GOOGLE_API_KEY}")
+    private String apiKey;
+
+    @Value("${gemini.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String baseUrl;
+
+    @Value("${gemini.model:gemini-1.5-flash}")
+    private String model;
+
+    @Value("${gemini.embedding-model:text-embedding-004}")
+    private String embeddingModel;
+
+    @Value("${gemini.http.deadline-ms:90000}")
+    private long deadlineMillis;
+
+    @Value("${gemini.http.attempt-timeout-ms:45000}")
+    private long attemptTimeoutMillis;
+
+    @Value("${gemini.http.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${gemini.http.backoff-ms:500}")
+    private long backoffMillis;
+
+    @Value("${gemini.http.max-backoff-ms:8000}")
+    private long maxBackoffMillis;
+
+    // 0 disables hedging; it doubles the cost of every slow call, so it is opt-in
+    @Value("${gemini.http.hedge-after-ms:0}")
+    private long hedgeAfterMillis;
+
+    @Value("${gemini.http.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${gemini.http.breaker.open-ms:30000}")
+    private long breakerOpenMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    public void createCircuitBreaker() {
+        circuitBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis);
+    }
+
+    /**
+     * Blocking form of {@link #generateTextAsync}; failures surface as {@link GeminiApiException}. An interrupt
+     * abandons the call (no further retries are made) and surfaces as one too, with the interrupt flag kept.
+     */
+    public String generateText(String prompt) {
+        CompletableFuture<JsonNode> call = postAsync(generateContentMethod(), textRequest(prompt));
+        try {
+            return firstCandidateText(call.get());
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new GeminiApiException("Interrupted waiting for Gemini", -1, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GeminiApiException apiException) {
+                throw apiException;
+            }
+            throw new GeminiApiException("Gemini call failed: " + e.getCause(), -1, e.getCause());
+        }
+    }
+
+    /** Text of the first candidate for a single-turn generateContent request. */
+    public CompletableFuture<String> generateTextAsync(String prompt) {
+        return postAsync(generateContentMethod(), textRequest(prompt)).thenApply(GeminiClient::firstCandidateText);
+    }
+
+    /** Most texts Gemini accepts in one batchEmbedContents request. */
+    public static final int MAX_EMBED_BATCH = 100;
+
+    /**
+     * One embedding per text, in order, from a single batchEmbedContents request of at most
+     * {@link #MAX_EMBED_BATCH}. Cancelling the returned future abandons the request.
+     */
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        if (texts.size() > MAX_EMBED_BATCH) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                "At most " + MAX_EMBED_BATCH + " texts per batch, got " + texts.size()));
+        }
+        String modelName = "models/" + embeddingModel;
+        List<Map<String, Object>> requests = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            requests.add(Map.of("model", modelName, "content", Map.of("parts", List.of(Map.of("text", text)))));
+        }
+        CompletableFuture<JsonNode> call = postAsync(modelName + ":batchEmbedContents", Map.of("requests", requests));
+        CompletableFuture<List<float[]>> vectors = call.thenApply(response -> embeddingValues(response, texts.size()));
+        vectors.whenComplete((result, error) -> {
+            if (vectors.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return vectors;
+    }
+
+    private static List<float[]> embeddingValues(JsonNode response, int expected) {
+        JsonNode embeddings = response.path("embeddings");
+        if (embeddings.size() != expected) {
+            throw new GeminiApiException("Expected " + expected + " embeddings but got " + embeddings.size(), 200, null);
+        }
+        List<float[]> vectors = new ArrayList<>(expected);
+        for (JsonNode embedding : embeddings) {
+            JsonNode values = embedding.path("values");
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) values.get(i).asDouble();
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private String generateContentMethod() {
+        return "models/" + model + ":generateContent";
+    }
+
+    private static Map<String, Object> textRequest(String prompt) {
+        return Map.of("contents", List.of(Map.of("parts", List.of(Map.of("text", prompt)))));
+    }
+
+    /**
+     * POSTs {@code body} as JSON to {@code method} (e.g. {@code models/text-embedding-004:embedContent}) under
+     * the retry, deadline, breaker and hedging policy, and completes with the parsed response. Cancelling the
+     * returned future stops any further attempts.
+     */
+    public CompletableFuture<JsonNode> postAsync(String method, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new GeminiApiException("Could not serialise request", -1, e));
+        }
+        URI uri = URI.create(baseUrl + "/" + method);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        attempt(uri, json, deadline, 1, result).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                result.complete(response);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<JsonNode> attempt(URI uri, byte[] json, long deadline, int attempt, CompletableFuture<JsonNode> result) {
+        if (result.isDone()) {
+            // The caller gave up (cancelled); don't spend another request on it
+            return CompletableFuture.failedFuture(new GeminiApiException("Call abandoned before attempt " + attempt, -1, null));
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            return CompletableFuture.failedFuture(new GeminiApiException("Deadline exceeded before attempt " + attempt, -1, null));
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.httpAttempt(METRICS_CLIENT, "rejected");
+            return CompletableFuture.failedFuture(new GeminiApiException("Circuit breaker open", -1, null));
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofMillis(Math.min(attemptTimeoutMillis, remainingMillis)))
+            .header("Content-Type", "application/json")
+            .header("x-goog-api-key", apiKey)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+            .build();
+        return sendHedged(request).handle((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            int status = response == null ? -1 : response.statusCode();
+            if (cause == null && status / 100 == 2) {
+                circuitBreaker.onSuccess();
+                metrics.httpAttempt(METRICS_CLIENT, "success");
+                return CompletableFuture.completedFuture(parse(response));
+            }
+            boolean retryable = cause != null || status == 429 || status >= 500;
+            // 429 means the service is up but throttling us; only real failures count towards the breaker
+            if (cause != null || status >= 500) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            String reason = cause != null ? cause.toString() : "HTTP " + status + ": " + snippet(response);
+            long delayMillis = retryable ? retryDelayMillis(attempt, response) : -1;
+            if (!retryable || attempt >= maxAttempts || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) >= deadline) {
+                metrics.httpAttempt(METRICS_CLIENT, "failure");
+                return CompletableFuture.<JsonNode>failedFuture(
+                    new GeminiApiException("Gemini call failed after " + attempt + " attempt(s): " + reason, status, cause));
+            }
+            metrics.httpAttempt(METRICS_CLIENT, "retry");
+            log.warn("Gemini attempt {} failed ({}), retrying in {} ms", attempt, reason, delayMillis);
+            return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> attempt(uri, json, deadline, attempt + 1, result));
+        }).thenCompose(future -> future);
+    }
+
+    // Sends the request and, if it has not answered after hedge-after-ms, a duplicate. The first usable
+    // response wins and the other exchange is cancelled; an error only wins once both have failed.
+    // The duplicate only goes out while the breaker is CLOSED: a half-open probe must stay a single call.
+    private CompletableFuture<HttpResponse<byte[]>> sendHedged(HttpRequest request) {
+        CompletableFuture<HttpResponse<byte[]>> primary = upstreamHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (hedgeAfterMillis <= 0) {
+            return primary;
+        }
+        CompletableFuture<HttpResponse<byte[]>> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        settleInto(winner, primary, outstanding);
+        CompletableFuture.delayedExecutor(hedgeAfterMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone() || circuitBreaker.state() != CircuitBreaker.State.CLOSED
+                    || outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+            }
+            metrics.httpAttempt(METRICS_CLIENT, "hedge");
+            CompletableFuture<HttpResponse<byte[]>> hedge = upstreamHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+            settleInto(winner, hedge, outstanding);
+            winner.whenComplete((response, error) -> hedge.cancel(true));
+        });
+        winner.whenComplete((response, error) -> primary.cancel(true));
+        return winner;
+    }
+
+    private static void settleInto(CompletableFuture<HttpResponse<byte[]>> winner, CompletableFuture<HttpResponse<byte[]>> exchange,
+                                   AtomicInteger outstanding) {
+        exchange.whenComplete((response, error) -> {
+            boolean usable = error == null && response.statusCode() != 429 && response.statusCode() < 500;
+            if (usable) {
+                winner.complete(response);
+            } else if (outstanding.decrementAndGet() == 0) {
+                if (error != null) {
+                    winner.completeExceptionally(error);
+                } else {
+                    winner.complete(response);
+                }
+            }
+        });
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt - 1))], unless the server said how long to wait
+    private long retryDelayMillis(int attempt, HttpResponse<byte[]> response) {
+        if (response != null) {
+            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+            if (retryAfter != null) {
+                try {
+                    return Math.min(maxBackoffMillis, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+                } catch (NumberFormatException e) {
+                    // An HTTP date; fall back to our own schedule
+                }
+            }
+        }
+        long ceiling = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private JsonNode parse(HttpResponse<byte[]> response) {
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new GeminiApiException("Unreadable Gemini response", response.statusCode(), e);
+        }
+    }
+
+    private static String firstCandidateText(JsonNode response) {
+        JsonNode text = response.path("candidates").path(0).path("content").path("parts").path(0).path("text");
+        if (!text.isTextual()) {
+            String finishReason = response.path("candidates").path(0).path("finishReason").asText("none");
+            throw new GeminiApiException("Gemini response has no candidate text (finishReason=" + finishReason + ")", 200, null);
+        }
+        return text.asText();
+    }
+
+    private static String snippet(HttpResponse<byte[]> response) {
+        String body = new String(response.body(), StandardCharsets.UTF_8);
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+}
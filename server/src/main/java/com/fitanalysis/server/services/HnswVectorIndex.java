@@ -0,0 +1,433 @@
+package com.fitanalysis.server.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical Navigable Small World graph over chunk embeddings (Malkov & Yashunin).
+ * Vectors are kept in one contiguous float[] like {@link FlatVectorIndex}; each node stores one
+ * neighbour list per layer it lives on. Inserts are serialised behind a write lock so the ingestion
+ * paths can add concurrently, while searches share a read lock. Vectors are normalised on insert and
+ * queries once per search, so every similarity in the graph walk is a dot product. Removed nodes are
+ * tombstoned, and the graph is rebuilt from the live nodes once tombstones make up a fifth of it, so
+ * edits and deletes don't degrade search for good.
+ */
+public class HnswVectorIndex implements VectorIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double COMPACT_DELETED_FRACTION = 0.2;
+    private static final ThreadLocal<VisitedSet> VISITED = ThreadLocal.withInitial(VisitedSet::new);
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimension;
+    private int size;
+    private long[] ids = new long[0];
+    private float[] vectors = new float[0];
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    // Removed nodes stay in the graph as tombstones so their links still route searches
+    private boolean[] deleted = new boolean[0];
+    private int deletedCount;
+    // neighbours[node][layer] holds neighbour node indexes, neighbourCounts[node][layer] how many are set
+    private int[][][] neighbours = new int[0][][];
+    private int[][] neighbourCounts = new int[0][];
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswVectorIndex(int m, int efConstruction, int efSearch) {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW M must be at least 2");
+        }
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected embedding of dimension " + dimension + " but got " + vector.length);
+            }
+            if (rowById.containsKey(id)) {
+                // Already indexed, e.g. saved by ingestion while the startup load was running
+                return;
+            }
+            insert(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = rowById.remove(id);
+            if (node != null && !deleted[node]) {
+                deleted[node] = true;
+                deletedCount++;
+                if (deletedCount > COMPACT_DELETED_FRACTION * size) {
+                    compact();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchHit> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    public List<SearchHit> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0) {
+                return Collections.emptyList();
+            }
+            checkDimension(query);
+            float[] unitQuery = VectorMath.normalizedCopy(query);
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                current = greedyClosest(unitQuery, current, layer);
+            }
+            // Widen the beam by the share of tombstones it can be expected to hold, at most 1 / (1 - fraction)
+            int beam = (int) Math.ceil(Math.max(ef, k) * (double) size / Math.max(1, size - deletedCount));
+            List<Candidate> candidates = searchLayer(unitQuery, current, beam, 0);
+            List<SearchHit> hits = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && hits.size() < k; i++) {
+                Candidate candidate = candidates.get(i);
+                if (!deleted[candidate.node]) {
+                    hits.add(new SearchHit(ids[candidate.node], candidate.score));
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Brute-force search over the same vectors, used as ground truth when measuring recall. */
+    public List<SearchHit> exactSearch(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0) {
+                return Collections.emptyList();
+            }
+            checkDimension(query);
+            float[] unitQuery = VectorMath.normalizedCopy(query);
+            TopK top = new TopK(Math.min(k, size));
+            for (int node = 0; node < size; node++) {
+                if (deleted[node]) continue;
+                float score = VectorMath.dot(unitQuery, vectors, node * dimension, dimension);
+                if (score > top.threshold()) {
+                    top.offer(score, node);
+                }
+            }
+            top.sortDescending();
+            List<SearchHit> hits = new ArrayList<>(top.size());
+            for (int i = 0; i < top.size(); i++) {
+                hits.add(new SearchHit(ids[top.row(i)], top.score(i)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies of up to {@code count} stored vectors picked at random, with repeats, from the live (not removed)
+     * nodes; used to sample recall queries.
+     */
+    public List<float[]> sampleLiveVectors(int count, SplittableRandom random) {
+        lock.readLock().lock();
+        try {
+            List<float[]> sample = new ArrayList<>();
+            if (size - deletedCount == 0) {
+                return sample;
+            }
+            while (sample.size() < count) {
+                // Tombstones are under a fifth of the nodes, so a retry is rare
+                int node = random.nextInt(size);
+                if (!deleted[node]) {
+                    sample.add(Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension));
+                }
+            }
+            return sample;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(long id, float[] vector) {
+        ensureCapacity(size + 1);
+        int node = size;
+        ids[node] = id;
+        rowById.put(id, node);
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        VectorMath.normalize(vectors, node * dimension, dimension);
+        float[] unitVector = Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+        int level = randomLevel();
+        neighbours[node] = new int[level + 1][];
+        neighbourCounts[node] = new int[level + 1];
+        for (int layer = 0; layer <= level; layer++) {
+            neighbours[node][layer] = new int[maxConnections(layer)];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(unitVector, current, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(unitVector, current, efConstruction, layer);
+            for (Candidate neighbour : selectNeighbours(candidates, m)) {
+                connect(node, neighbour.node, layer);
+                connect(neighbour.node, node, layer);
+            }
+            current = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    // Rebuilds the graph from the live nodes, in their original insertion order; called under the write lock
+    private void compact() {
+        int live = size - deletedCount;
+        long[] liveIds = new long[live];
+        float[] liveVectors = new float[live * dimension];
+        for (int node = 0, next = 0; node < size; node++) {
+            if (deleted[node]) continue;
+            liveIds[next] = ids[node];
+            System.arraycopy(vectors, node * dimension, liveVectors, next * dimension, dimension);
+            next++;
+        }
+        size = 0;
+        deletedCount = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+        rowById.clear();
+        ids = new long[0];
+        vectors = new float[0];
+        deleted = new boolean[0];
+        neighbours = new int[0][][];
+        neighbourCounts = new int[0][];
+        for (int i = 0; i < live; i++) {
+            insert(liveIds[i], Arrays.copyOfRange(liveVectors, i * dimension, (i + 1) * dimension));
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        double currentScore = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] links = neighbours[current][layer];
+            int count = neighbourCounts[current][layer];
+            for (int i = 0; i < count; i++) {
+                double score = similarity(query, links[i]);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = links[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Returns up to ef nodes closest to the query on the given layer, best first
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer) {
+        VisitedSet visited = VISITED.get();
+        visited.reset(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Double.compare(b.score, a.score));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+        Candidate first = new Candidate(start, similarity(query, start));
+        visited.mark(start);
+        frontier.add(first);
+        results.add(first);
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.score < results.peek().score) {
+                break;
+            }
+            int[] links = neighbours[closest.node][layer];
+            int count = neighbourCounts[closest.node][layer];
+            for (int i = 0; i < count; i++) {
+                int neighbour = links[i];
+                if (!visited.mark(neighbour)) continue;
+                double score = similarity(query, neighbour);
+                if (results.size() < ef || score > results.peek().score) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort((a, b) -> Double.compare(b.score, a.score));
+        return ordered;
+    }
+
+    private void connect(int from, int to, int layer) {
+        int[] links = neighbours[from][layer];
+        int count = neighbourCounts[from][layer];
+        if (count < links.length) {
+            links[count] = to;
+            neighbourCounts[from][layer] = count + 1;
+            return;
+        }
+        // List is full: re-select the best diverse set out of the existing links plus the new one
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            candidates.add(new Candidate(links[i], similarity(from, links[i])));
+        }
+        candidates.add(new Candidate(to, similarity(from, to)));
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+        List<Candidate> selected = selectNeighbours(candidates, links.length);
+        for (int i = 0; i < selected.size(); i++) {
+            links[i] = selected.get(i).node;
+        }
+        neighbourCounts[from][layer] = selected.size();
+    }
+
+    // Neighbour-selection heuristic: prefer candidates closer to the base than to any already selected
+    // neighbour, so links spread across clusters; top up with the pruned ones if there is room left
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= max) break;
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity(candidate.node, kept.node) > candidate.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < max; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxConnections(int layer) {
+        return layer == 0 ? maxM0 : m;
+    }
+
+    private double similarity(float[] unitQuery, int node) {
+        return VectorMath.dot(unitQuery, vectors, node * dimension, dimension);
+    }
+
+    private double similarity(int a, int b) {
+        return VectorMath.dot(vectors, a * dimension, vectors, b * dimension, dimension);
+    }
+
+    private void checkDimension(float[] query) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected query of dimension " + dimension + " but got " + query.length);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, ids.length);
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        vectors = Arrays.copyOf(vectors, capacity * dimension);
+        neighbours = Arrays.copyOf(neighbours, capacity);
+        neighbourCounts = Arrays.copyOf(neighbourCounts, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+    }
+
+    private static class Candidate {
+        final int node;
+        final double score;
+        Candidate(int node, double score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+
+    // Epoch-stamped visited marks, reused per thread so a layer search doesn't allocate O(size) each time
+    private static class VisitedSet {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int size) {
+            if (marks.length < size) {
+                marks = new int[Math.max(size, marks.length * 2)];
+                epoch = 0;
+            }
+            epoch++;
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean mark(int node) {
+            if (marks[node] == epoch) {
+                return false;
+            }
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.fitanalysis.server.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Standalone bulk load for seeding a fresh database, e.g.
+ * {@code java -jar server.jar --ingestion.bulk-load.directory=/data/papers --spring.main.web-application-type=none}.
+ * Runs the paper pipeline once at startup and, unless {@code ingestion.bulk-load.exit-on-completion=false}, exits.
+ */
+@Component
+@ConditionalOnProperty(name = "ingestion.bulk-load.directory")
+public class PaperBulkLoadRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperBulkLoadRunner.class);
+
+    @Autowired
+    private PaperIngestionPipeline paperIngestionPipeline;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${ingestion.bulk-load.directory}")
+    private String directory;
+
+    @Value("${ingestion.bulk-load.exit-on-completion:true}")
+    private boolean exitOnCompletion;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.currentTimeMillis();
+        List<PaperIngestionPipeline.StageStats> stats = paperIngestionPipeline.run(Paths.get(directory));
+        long failed = stats.stream().mapToLong(PaperIngestionPipeline.StageStats::failed).sum();
+        log.info("Bulk load of {} finished in {} ms with {} failures", directory, System.currentTimeMillis() - start, failed);
+        if (exitOnCompletion) {
+            System.exit(SpringApplication.exit(applicationContext, () -> failed == 0 ? 0 : 1));
+        }
+    }
+}
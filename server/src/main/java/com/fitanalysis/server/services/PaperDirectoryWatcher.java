@@ -0,0 +1,131 @@
+package com.fitanalysis.server.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional background ingestion ({@code ingestion.watcher.enabled}). Ingests the papers directory once at
+ * startup and again whenever PDFs are created, modified or deleted in it, so analyses no longer have to scan the
+ * directory on the request path. Events are debounced so a file still being copied is ingested once.
+ */
+@Service
+public class PaperDirectoryWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperDirectoryWatcher.class);
+
+    @Autowired
+    private PaperIngestionPipeline paperIngestionPipeline;
+
+    @Value("${ingestion.watcher.enabled:false}")
+    private boolean enabled;
+
+    @Value("${analysis.papers-directory:papers}")
+    private String papersDirectory;
+
+    @Value("${ingestion.watcher.debounce-ms:2000}")
+    private long debounceMillis;
+
+    private volatile WatchService watchService;
+    private volatile Path watchedDirectory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(papersDirectory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(directory)) {
+            log.warn("Papers directory {} not found, not watching for new papers", directory);
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            log.warn("Could not watch papers directory {}: {}", directory, e.getMessage());
+            return;
+        }
+        watchedDirectory = directory;
+        Thread thread = new Thread(() -> watch(directory), "paper-directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for new papers", directory);
+    }
+
+    /** True if {@code directory} is kept ingested in the background, so callers can skip scanning it. */
+    public boolean isWatching(Path directory) {
+        Path watched = watchedDirectory;
+        return watched != null && watched.equals(directory.toAbsolutePath().normalize());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        WatchService service = watchService;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private void watch(Path directory) {
+        ingest(directory);
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // Keep collecting until the directory has been quiet for the debounce interval
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+                if (changed) {
+                    ingest(directory);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    // True if any event may concern a PDF; an overflow means events were lost, so rescan to be safe
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || event.context().toString().toLowerCase().endsWith(".pdf")) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void ingest(Path directory) {
+        try {
+            paperIngestionPipeline.run(directory);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Background paper ingestion failed", e);
+        }
+    }
+}
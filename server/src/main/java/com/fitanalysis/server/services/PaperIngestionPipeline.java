@@ -0,0 +1,547 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.PaperManifestEntry;
+import com.fitanalysis.server.models.SourceType;
+import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import io.micrometer.observation.Observation;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Staged paper ingestion: discovery -> extraction -> embedding -> persistence. Extraction streams
+ * pages straight into the chunker and hands chunks on in batches of {@code ingestion.pipeline.chunk-batch-size}
+ * as they complete, so neither a paper's text nor all of its chunks are held at once. Each batch is embedded
+ * and saved as it arrives; once a paper's last batch is saved its stale chunks go and its manifest entry is
+ * recorded, so a paper interrupted part-way is ingested again (from scratch) by the next run.
+ * Stages are connected by bounded queues (so a slow stage back-pressures the ones before it) and each
+ * has its own worker pool (see ExecutorConfig), letting CPU-bound extraction overlap with IO-bound embedding.
+ * One run happens at a time; a caller that arrives during a run of the same directory waits for it and
+ * shares its result instead of starting another. Per-stage step timings, outcomes and queue depths are
+ * published through {@link PipelineMetrics}.
+ * Papers are tracked in the {@link PaperManifest} by content hash: unchanged files are skipped during
+ * discovery without touching the database, renamed files reuse their chunks, edited files have their
+ * old chunks dropped once the new ones are saved, and files gone from the directory are dropped from the manifest
+ * (with their chunks, unless another path has the same content).
+ */
+@Service
+public class PaperIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperIngestionPipeline.class);
+
+    private static final PaperWork END = new PaperWork(null, 0, 0);
+
+    private static final List<String> STAGE_NAMES = List.of("extraction", "embedding", "persistence");
+
+    @Autowired
+    private KnowledgeChunkRepository knowledgeChunkRepository;
+
+    @Autowired
+    private PaperManifest paperManifest;
+
+    @Autowired
+    private PdfTextExtractor pdfTextExtractor;
+
+    @Autowired
+    private TextChunker textChunker;
+
+    @Autowired
+    private BatchEmbeddingService batchEmbeddingService;
+
+    @Autowired
+    private ChunkPersistenceService chunkPersistenceService;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ExecutorService ingestExtractionExecutor;
+
+    @Autowired
+    private ExecutorService ingestEmbeddingExecutor;
+
+    @Autowired
+    private ExecutorService ingestPersistenceExecutor;
+
+    @Value("${ingestion.pipeline.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${ingestion.pipeline.extract-threads:2}")
+    private int extractThreads;
+
+    @Value("${ingestion.pipeline.embed-threads:4}")
+    private int embedThreads;
+
+    @Value("${ingestion.pipeline.persist-threads:1}")
+    private int persistThreads;
+
+    @Value("${ingestion.pipeline.chunk-batch-size:64}")
+    private int chunkBatchSize;
+
+    private volatile List<Stage> lastRunStages = Collections.emptyList();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Content hashes being ingested in the current run, so two copies of one paper are embedded once
+    private final Set<String> claimedHashes = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final Map<String, CompletableFuture<List<StageStats>>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerQueueGauges() {
+        for (String stage : STAGE_NAMES) {
+            metrics.ingestionQueueGauge(stage, () -> {
+                for (Stage running : lastRunStages) {
+                    if (running.name.equals(stage)) return running.input.size();
+                }
+                return 0;
+            });
+        }
+    }
+
+    public List<StageStats> run(Path papersDirectory) throws InterruptedException {
+        String key = PaperManifest.key(papersDirectory);
+        CompletableFuture<List<StageStats>> mine = new CompletableFuture<>();
+        CompletableFuture<List<StageStats>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.get();
+            } catch (ExecutionException e) {
+                // That run failed or was interrupted; try again on our own
+                return run(papersDirectory);
+            }
+        }
+        try {
+            runLock.lockInterruptibly();
+            try {
+                List<StageStats> stats = runExclusive(papersDirectory);
+                mine.complete(stats);
+                return stats;
+            } finally {
+                runLock.unlock();
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private List<StageStats> runExclusive(Path papersDirectory) throws InterruptedException {
+        if (!Files.isDirectory(papersDirectory)) {
+            log.warn("Papers directory not found: {}", papersDirectory);
+            return Collections.emptyList();
+        }
+        log.info("Starting paper ingestion pipeline for {}", papersDirectory);
+        BlockingQueue<PaperWork> discovered = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<PaperWork> chunked = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<PaperWork> embedded = new ArrayBlockingQueue<>(queueCapacity);
+        List<Stage> stages = List.of(
+            new Stage(STAGE_NAMES.get(0), extractThreads, ingestExtractionExecutor, discovered, chunked, this::extract),
+            new Stage(STAGE_NAMES.get(1), embedThreads, ingestEmbeddingExecutor, chunked, embedded, this::embed),
+            new Stage(STAGE_NAMES.get(2), persistThreads, ingestPersistenceExecutor, embedded, null, this::persist)
+        );
+        lastRunStages = stages;
+        claimedHashes.clear();
+        long start = System.nanoTime();
+        // Stage workers run their steps as children of the caller's observation (the analysis, or nothing)
+        Observation parent = metrics.currentObservation();
+        for (Stage stage : stages) {
+            stage.start(start, metrics, parent);
+        }
+        Set<String> presentPaths;
+        boolean completed = false;
+        try {
+            presentPaths = discover(papersDirectory, discovered);
+            discovered.put(END);
+            for (Stage stage : stages) {
+                stage.awaitCompletion();
+                if (stage.output != null) {
+                    stage.output.put(END);
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // Interrupted: stop the workers so they don't hold the shared pools waiting for an END
+                for (Stage stage : stages) {
+                    stage.cancel();
+                }
+            }
+        }
+        if (presentPaths != null) {
+            // After the stages, so a renamed paper's new path already shares the content hash and keeps its chunks
+            pruneMissing(papersDirectory, presentPaths);
+        }
+        List<StageStats> stats = getStageStats();
+        for (StageStats stage : stats) {
+            log.info("Ingestion stage {}", stage);
+        }
+        return stats;
+    }
+
+    /** Live counters of the running (or most recent) pipeline run. */
+    public List<StageStats> getStageStats() {
+        List<StageStats> stats = new ArrayList<>();
+        for (Stage stage : lastRunStages) {
+            stats.add(stage.snapshot());
+        }
+        return stats;
+    }
+
+    // Manifest keys of the PDFs found, or null if the directory could not be listed
+    private Set<String> discover(Path papersDirectory, BlockingQueue<PaperWork> discovered) throws InterruptedException {
+        List<Path> pdfFiles;
+        try (Stream<Path> files = Files.list(papersDirectory)) {
+            pdfFiles = files.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".pdf")).toList();
+        } catch (IOException e) {
+            log.warn("Could not list papers directory {}: {}", papersDirectory, e.getMessage());
+            return null;
+        }
+        Set<String> presentPaths = new HashSet<>();
+        int unchanged = 0;
+        for (Path pdfFile : pdfFiles) {
+            presentPaths.add(PaperManifest.key(pdfFile));
+            long size;
+            long lastModified;
+            try {
+                size = Files.size(pdfFile);
+                lastModified = Files.getLastModifiedTime(pdfFile).toMillis();
+            } catch (IOException e) {
+                log.warn("Could not stat {}: {}", pdfFile, e.getMessage());
+                continue;
+            }
+            if (paperManifest.isUnchanged(pdfFile, size, lastModified)) {
+                unchanged++;
+                continue;
+            }
+            discovered.put(new PaperWork(pdfFile, size, lastModified));
+        }
+        log.info("Discovered {} PDF files, {} unchanged since last ingestion", pdfFiles.size(), unchanged);
+        return presentPaths;
+    }
+
+    // Manifest entries of deleted or renamed-away files go, and so do their chunks unless another path
+    // still has the same content
+    private void pruneMissing(Path papersDirectory, Set<String> presentPaths) {
+        int removed = 0;
+        for (PaperManifestEntry entry : paperManifest.entriesIn(papersDirectory)) {
+            if (presentPaths.contains(entry.getPath())) {
+                continue;
+            }
+            boolean shared = paperManifest.isSharedHash(entry.getContentHash(), Path.of(entry.getPath()));
+            try {
+                chunkPersistenceService.removePaper(entry, !shared);
+                removed++;
+            } catch (RuntimeException e) {
+                log.warn("Could not remove missing paper {}: {}", entry.getPath(), e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} papers no longer in {}", removed, papersDirectory);
+        }
+    }
+
+    private boolean extract(PaperWork work, Downstream downstream) throws IOException, InterruptedException {
+        String contentHash = PaperManifest.hash(work.path);
+        work.manifestEntry = new PaperManifestEntry(PaperManifest.key(work.path), contentHash, work.size, work.lastModified);
+        work.sourceId = work.manifestEntry.getSourceId();
+
+        Optional<PaperManifestEntry> previous = paperManifest.get(work.path);
+        if (previous.isPresent() && !previous.get().getContentHash().equals(contentHash)
+                && !paperManifest.isSharedHash(previous.get().getContentHash(), work.path)) {
+            // Edited in place: the chunks of the old version go
+            work.staleSourceIds.add(previous.get().getSourceId());
+        }
+        // Chunks written before the manifest existed were keyed by path
+        work.staleSourceIds.add(work.path.toString());
+        work.staleSourceIds.add(PaperManifest.key(work.path));
+
+        if (paperManifest.isKnownHash(contentHash)) {
+            // Same content already ingested (touched, renamed or copied): only the manifest changes
+            chunkPersistenceService.replaceChunks(work.staleSourceIds, List.of(), work.manifestEntry);
+            log.info("PDF {} already ingested as {}, skipping ingestion", work.path, work.sourceId);
+            return false;
+        }
+        if (!claimedHashes.add(contentHash)) {
+            log.info("PDF {} has the same content as another paper in this run, skipping", work.path);
+            return false;
+        }
+        // Batches that an interrupted run saved before it could record the paper
+        chunkPersistenceService.deleteChunks(work.sourceId);
+        PaperProgress progress = new PaperProgress(work);
+        TextChunker.ChunkBuilder chunks = textChunker.builder();
+        int batchSize = Math.max(1, chunkBatchSize);
+        try {
+            pdfTextExtractor.extractPages(work.path, (pageNumber, pageText) -> {
+                chunks.append(pageText, pageNumber);
+                while (chunks.completed() >= batchSize) {
+                    progress.emit(chunks.drain(batchSize), downstream);
+                }
+            });
+            List<TextChunker.Chunk> rest = chunks.finish();
+            for (int from = 0; from < rest.size(); from += batchSize) {
+                progress.emit(rest.subList(from, Math.min(rest.size(), from + batchSize)), downstream);
+            }
+        } catch (InterruptedException e) {
+            // Left unrecorded; the next run clears what was saved and starts the paper over
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            progress.release(false);
+            throw e;
+        }
+        progress.release(true);
+        return progress.chunkCount > 0;
+    }
+
+    private boolean embed(PaperWork batch, Downstream downstream) throws InterruptedException {
+        List<String> texts = new ArrayList<>(batch.chunks.size());
+        for (TextChunker.Chunk chunk : batch.chunks) {
+            texts.add(chunk.text());
+        }
+        batch.embeddings = batchEmbeddingService.getEmbeddings(texts);
+        downstream.emit(batch);
+        return true;
+    }
+
+    private boolean persist(PaperWork batch, Downstream downstream) {
+        List<KnowledgeChunk> chunkEntities = new ArrayList<>(batch.chunks.size());
+        for (int i = 0; i < batch.chunks.size(); i++) {
+            TextChunker.Chunk chunk = batch.chunks.get(i);
+            chunkEntities.add(new KnowledgeChunk(
+                chunk.text(),
+                batch.embeddings.get(i),
+                batch.sourceId,
+                SourceType.RESEARCH_PAPER,
+                objectMapper.createObjectNode()
+                    .put("chunk_index", batch.firstChunkIndex + i)
+                    .put("page", chunk.page())
+                    .put("file_name", batch.path.getFileName().toString())
+                    .toString()
+            ));
+        }
+        chunkPersistenceService.saveChunks(chunkEntities);
+        batch.progress.release(true);
+        return true;
+    }
+
+    /**
+     * The batches of one paper still in flight. Extraction holds one count until it has emitted every batch
+     * and each batch holds one until it is saved or fails; whoever releases the last count records the
+     * paper, or drops its saved chunks if any batch failed.
+     */
+    private final class PaperProgress {
+        private final PaperWork paper;
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile boolean failed;
+        private int chunkCount;
+
+        PaperProgress(PaperWork paper) {
+            this.paper = paper;
+        }
+
+        void emit(List<TextChunker.Chunk> batch, Downstream downstream) throws InterruptedException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            pending.incrementAndGet();
+            downstream.emit(paper.batch(batch, chunkCount, this));
+            chunkCount += batch.size();
+        }
+
+        void release(boolean succeeded) {
+            if (!succeeded) {
+                failed = true;
+            }
+            if (pending.decrementAndGet() != 0) {
+                return;
+            }
+            if (failed) {
+                chunkPersistenceService.deleteChunks(paper.sourceId);
+                log.warn("Ingestion of {} failed part-way, dropped the chunks saved for it", paper.path);
+                return;
+            }
+            chunkPersistenceService.replaceChunks(paper.staleSourceIds, List.of(), paper.manifestEntry);
+            if (chunkCount == 0) {
+                // No text layer (e.g. scanned): still recorded so it isn't parsed again
+                log.info("PDF {} has no extractable text, recorded without chunks", paper.path);
+            } else {
+                log.info("Saved {} PDF chunks for {} as {}", chunkCount, paper.path, paper.sourceId);
+            }
+        }
+    }
+
+    // A discovered paper on its way into extraction, or one batch of its chunks after it; each stage
+    // fills in the next field
+    private static class PaperWork {
+        final Path path;
+        final long size;
+        final long lastModified;
+        final List<String> staleSourceIds;
+        PaperManifestEntry manifestEntry;
+        String sourceId;
+        PaperProgress progress;
+        int firstChunkIndex;
+        List<TextChunker.Chunk> chunks;
+        List<float[]> embeddings;
+
+        PaperWork(Path path, long size, long lastModified) {
+            this(path, size, lastModified, new ArrayList<>());
+        }
+
+        private PaperWork(Path path, long size, long lastModified, List<String> staleSourceIds) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.staleSourceIds = staleSourceIds;
+        }
+
+        PaperWork batch(List<TextChunker.Chunk> chunks, int firstChunkIndex, PaperProgress progress) {
+            PaperWork batch = new PaperWork(path, size, lastModified, staleSourceIds);
+            batch.manifestEntry = manifestEntry;
+            batch.sourceId = sourceId;
+            batch.progress = progress;
+            batch.firstChunkIndex = firstChunkIndex;
+            batch.chunks = chunks;
+            return batch;
+        }
+    }
+
+    private interface Downstream {
+        void emit(PaperWork work) throws InterruptedException;
+    }
+
+    private interface Step {
+        // Hands its result(s) to downstream; false means the item was skipped
+        boolean apply(PaperWork work, Downstream downstream) throws Exception;
+    }
+
+    private static class Stage {
+        final String name;
+        final int workers;
+        final ExecutorService pool;
+        final BlockingQueue<PaperWork> input;
+        final BlockingQueue<PaperWork> output;
+        final Step step;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        final List<Future<?>> running = new ArrayList<>();
+        CountDownLatch done;
+        long runStartNanos;
+        PipelineMetrics metrics;
+        Observation parent;
+
+        Stage(String name, int workers, ExecutorService pool, BlockingQueue<PaperWork> input, BlockingQueue<PaperWork> output,
+              Step step) {
+            this.name = name;
+            this.workers = Math.max(1, workers);
+            this.pool = pool;
+            this.input = input;
+            this.output = output;
+            this.step = step;
+        }
+
+        void start(long runStartNanos, PipelineMetrics metrics, Observation parent) {
+            this.runStartNanos = runStartNanos;
+            this.metrics = metrics;
+            this.parent = parent;
+            done = new CountDownLatch(workers);
+            for (int i = 0; i < workers; i++) {
+                running.add(pool.submit(this::work));
+            }
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            done.await();
+        }
+
+        void cancel() {
+            for (Future<?> worker : running) {
+                worker.cancel(true);
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    PaperWork work = input.take();
+                    if (work == END) {
+                        // Put the marker back so sibling workers of this stage also stop
+                        input.put(END);
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    try (Observation.Scope scope = parent != null ? parent.openScope() : null) {
+                        if (metrics.observe("ingestion.stage", name, () -> step.apply(work, this::forward))) {
+                            processed.incrementAndGet();
+                            metrics.ingestionItem(name, "processed");
+                        } else {
+                            skipped.incrementAndGet();
+                            metrics.ingestionItem(name, "skipped");
+                        }
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        metrics.ingestionItem(name, "failed");
+                        if (work.progress != null) {
+                            // A lost batch: the paper must not be recorded as ingested
+                            work.progress.release(false);
+                        }
+                        log.warn("Ingestion stage {} failed for {}: {}", name, work.path, e.getMessage());
+                    } finally {
+                        busyNanos.addAndGet(System.nanoTime() - start);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void forward(PaperWork work) throws InterruptedException {
+            if (output != null) {
+                output.put(work);
+            }
+        }
+
+        StageStats snapshot() {
+            double elapsedSeconds = Math.max(1e-9, (System.nanoTime() - runStartNanos) / 1e9);
+            return new StageStats(name, workers, processed.get(), skipped.get(), failed.get(),
+                busyNanos.get() / 1_000_000, processed.get() / elapsedSeconds, input.size());
+        }
+    }
+
+    public record StageStats(String stage, int workers, long processed, long skipped, long failed,
+                             long busyMillis, double itemsPerSecond, int queued) {}
+}
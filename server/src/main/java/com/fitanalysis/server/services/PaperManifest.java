@@ -0,0 +1,147 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.PaperManifestEntry;
+import com.fitanalysis.server.repository.PaperManifestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the paper_manifest table. Loaded once on first use, after which checking whether a
+ * paper changed costs no database calls. Entries are written through by {@link ChunkPersistenceService}
+ * in the same transaction as the chunks they describe.
+ */
+@Service
+public class PaperManifest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperManifest.class);
+
+    @Autowired
+    private PaperManifestRepository paperManifestRepository;
+
+    private final Map<String, PaperManifestEntry> byPath = new ConcurrentHashMap<>();
+    // Number of manifest paths pointing at each content hash; a hash with chunks has at least one
+    private final Map<String, Integer> pathsByHash = new HashMap<>();
+    private volatile boolean loaded;
+
+    /** True if {@code path} was ingested with exactly this size and modification time. */
+    public boolean isUnchanged(Path path, long sizeBytes, long lastModified) {
+        ensureLoaded();
+        PaperManifestEntry entry = byPath.get(key(path));
+        return entry != null && entry.getSizeBytes() == sizeBytes && entry.getLastModified() == lastModified;
+    }
+
+    public Optional<PaperManifestEntry> get(Path path) {
+        ensureLoaded();
+        return Optional.ofNullable(byPath.get(key(path)));
+    }
+
+    public boolean isKnownHash(String contentHash) {
+        ensureLoaded();
+        synchronized (pathsByHash) {
+            return pathsByHash.containsKey(contentHash);
+        }
+    }
+
+    /** Whether any path other than {@code path} still refers to {@code contentHash}. */
+    public boolean isSharedHash(String contentHash, Path path) {
+        ensureLoaded();
+        PaperManifestEntry own = byPath.get(key(path));
+        int ownCount = own != null && own.getContentHash().equals(contentHash) ? 1 : 0;
+        synchronized (pathsByHash) {
+            return pathsByHash.getOrDefault(contentHash, 0) > ownCount;
+        }
+    }
+
+    /** Updates the in-memory view after an entry was persisted elsewhere. */
+    public void remember(PaperManifestEntry entry) {
+        ensureLoaded();
+        PaperManifestEntry previous = byPath.put(entry.getPath(), entry);
+        synchronized (pathsByHash) {
+            if (previous != null) {
+                pathsByHash.computeIfPresent(previous.getContentHash(), (hash, count) -> count > 1 ? count - 1 : null);
+            }
+            pathsByHash.merge(entry.getContentHash(), 1, Integer::sum);
+        }
+    }
+
+    /** Updates the in-memory view after an entry was deleted elsewhere. */
+    public void forget(PaperManifestEntry entry) {
+        ensureLoaded();
+        if (byPath.remove(entry.getPath(), entry)) {
+            synchronized (pathsByHash) {
+                pathsByHash.computeIfPresent(entry.getContentHash(), (hash, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    /** Entries for files directly inside {@code directory}, which may no longer exist. */
+    public List<PaperManifestEntry> entriesIn(Path directory) {
+        ensureLoaded();
+        Path parent = Path.of(key(directory));
+        List<PaperManifestEntry> entries = new ArrayList<>();
+        for (PaperManifestEntry entry : byPath.values()) {
+            if (parent.equals(Path.of(entry.getPath()).getParent())) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    public int size() {
+        ensureLoaded();
+        return byPath.size();
+    }
+
+    public static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    public static String hash(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            for (PaperManifestEntry entry : paperManifestRepository.findAll()) {
+                byPath.put(entry.getPath(), entry);
+                synchronized (pathsByHash) {
+                    pathsByHash.merge(entry.getContentHash(), 1, Integer::sum);
+                }
+            }
+            loaded = true;
+            log.info("Loaded paper manifest with {} entries", byPath.size());
+        }
+    }
+}
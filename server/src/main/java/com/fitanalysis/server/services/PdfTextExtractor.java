@@ -0,0 +1,247 @@
+package com.fitanalysis.server.services;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracts text from PDFs with PDFBox page by page, handing each page to a consumer as soon as it is stripped
+ * so the whole document never sits in memory as text. Decoded streams are cached in temp files rather than on
+ * the heap, so memory stays bounded whatever the PDF claims to inflate to. Documents with at least
+ * {@code ingestion.pdf.parallel-page-threshold} pages are stripped on the page executor in ranges of
+ * {@code ingestion.pdf.pages-per-range}, each range from its own PDDocument (one cannot be shared across
+ * threads), with at most {@code ingestion.pdf.parallel-window} ranges held at once; pages are still delivered
+ * in order. Pages without a text layer (scanned images) come through empty.
+ */
+@Component
+public class PdfTextExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(int pageNumber, String text) throws InterruptedException;
+    }
+
+    @Autowired
+    private ExecutorService pdfPageExecutor;
+
+    @Value("${ingestion.pdf.parallel-page-threshold:200}")
+    private int parallelPageThreshold;
+
+    @Value("${ingestion.pdf.pages-per-range:32}")
+    private int pagesPerRange;
+
+    @Value("${ingestion.pdf.parallel-window:4}")
+    private int parallelWindow;
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong emptyPages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    /** Streams the text of each page, 1-based and in document order, to {@code consumer}. */
+    public void extractPages(Path pdfPath, PageConsumer consumer) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        long fileSize = Files.size(pdfPath);
+        int pageCount;
+        int empty = 0;
+        boolean parallel;
+        try (PDDocument document = load(pdfPath)) {
+            pageCount = document.getNumberOfPages();
+            parallel = pageCount >= parallelPageThreshold && parallelWindow > 1 && pageCount > pagesPerRange;
+            if (!parallel) {
+                empty = stripRange(document, 1, pageCount, consumer);
+            }
+        }
+        if (parallel) {
+            empty = extractParallel(pdfPath, pageCount, consumer);
+        }
+        long elapsed = System.nanoTime() - start;
+        documents.incrementAndGet();
+        pages.addAndGet(pageCount);
+        emptyPages.addAndGet(empty);
+        bytes.addAndGet(fileSize);
+        nanos.addAndGet(elapsed);
+        log.debug("Extracted {} pages ({} KB) from {} in {} ms{}, {} pages without a text layer",
+            pageCount, fileSize / 1024, pdfPath.getFileName(), elapsed / 1_000_000, parallel ? " in parallel" : "", empty);
+    }
+
+    /** Whole-document text; prefer {@link #extractPages} for anything large. */
+    public String extractText(Path pdfPath) throws IOException, InterruptedException {
+        StringBuilder text = new StringBuilder();
+        extractPages(pdfPath, (pageNumber, pageText) -> text.append(pageText).append('\n'));
+        return text.toString();
+    }
+
+    public Stats getStats() {
+        long totalNanos = Math.max(1, nanos.get());
+        return new Stats(documents.get(), pages.get(), emptyPages.get(), bytes.get(),
+            pages.get() * 1e9 / totalNanos, bytes.get() / 1048576.0 * 1e9 / totalNanos);
+    }
+
+    // The oldest range is handed on before another is queued, so at most parallelWindow ranges of text are held
+    private int extractParallel(Path pdfPath, int pageCount, PageConsumer consumer) throws InterruptedException {
+        int rangeSize = Math.max(1, pagesPerRange);
+        Deque<Future<String[]>> window = new ArrayDeque<>();
+        int delivered = 0;
+        int empty = 0;
+        try {
+            for (int first = 1; first <= pageCount; first += rangeSize) {
+                int from = first;
+                int to = Math.min(pageCount, first + rangeSize - 1);
+                window.add(pdfPageExecutor.submit(() -> stripRange(pdfPath, from, to)));
+                if (window.size() >= parallelWindow) {
+                    for (String text : take(window.poll())) {
+                        if (text.isEmpty()) empty++;
+                        consumer.accept(++delivered, text);
+                    }
+                }
+            }
+            while (!window.isEmpty()) {
+                for (String text : take(window.poll())) {
+                    if (text.isEmpty()) empty++;
+                    consumer.accept(++delivered, text);
+                }
+            }
+        } finally {
+            for (Future<String[]> pending : window) {
+                pending.cancel(true);
+            }
+        }
+        return empty;
+    }
+
+    private static String[] take(Future<String[]> range) throws InterruptedException {
+        try {
+            return range.get();
+        } catch (ExecutionException e) {
+            // stripRange turns failures into empty pages, so only an Error gets here
+            throw new IllegalStateException("Page range extraction failed", e.getCause());
+        }
+    }
+
+    // One range of a parallel extraction; a range that fails comes back as empty pages, as a bad page would
+    private static String[] stripRange(Path pdfPath, int first, int last) {
+        String[] texts = new String[last - first + 1];
+        Arrays.fill(texts, "");
+        try (PDDocument document = load(pdfPath)) {
+            stripRange(document, first, last, (pageNumber, text) -> texts[pageNumber - first] = text);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not extract pages {}-{} of {}: {}", first, last, pdfPath.getFileName(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return texts;
+    }
+
+    // Hands on pages [first, last] of an open document in order; returns how many were empty
+    private static int stripRange(PDDocument document, int first, int last, PageConsumer consumer)
+            throws IOException, InterruptedException {
+        PageStreamingStripper stripper = new PageStreamingStripper(consumer, first);
+        stripper.setStartPage(first);
+        stripper.setEndPage(last);
+        try {
+            stripper.writeText(document, stripper.pageText);
+            stripper.deliverEmptyThrough(last);
+        } catch (InterruptedIOException e) {
+            throw new InterruptedException(e.getMessage());
+        }
+        return stripper.emptyPages;
+    }
+
+    private static PDDocument load(Path pdfPath) throws IOException {
+        return Loader.loadPDF(pdfPath.toFile(), IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    // Hands on and clears the text written so far at the end of every page. Pages without a content stream
+    // never reach endPage, so they are handed on as empty when the next page (or the range) ends
+    private static final class PageStreamingStripper extends PDFTextStripper {
+
+        private final PageConsumer consumer;
+        private final StringWriter pageText = new StringWriter();
+        private int delivered;
+        private int emptyPages;
+
+        PageStreamingStripper(PageConsumer consumer, int firstPage) {
+            this.consumer = consumer;
+            this.delivered = firstPage - 1;
+            setSortByPosition(true);
+            setLineSeparator("\n");
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            String text = normalize(pageText.getBuffer());
+            pageText.getBuffer().setLength(0);
+            deliverEmptyThrough(getCurrentPageNo() - 1);
+            deliver(text);
+        }
+
+        void deliverEmptyThrough(int pageNumber) throws InterruptedIOException {
+            while (delivered < pageNumber) {
+                deliver("");
+            }
+        }
+
+        private void deliver(String text) throws InterruptedIOException {
+            if (text.isEmpty()) emptyPages++;
+            try {
+                consumer.accept(++delivered, text);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted handing on page " + delivered);
+            }
+        }
+    }
+
+    // Joins words hyphenated across line breaks and collapses runs of whitespace
+    static String normalize(CharSequence raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '-' && i + 1 < raw.length() && raw.charAt(i + 1) == '\n'
+                    && out.length() > 0 && Character.isLetter(out.charAt(out.length() - 1))
+                    && i + 2 < raw.length() && Character.isLowerCase(raw.charAt(i + 2))) {
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+                    out.append(' ');
+                }
+                continue;
+            }
+            out.append(c);
+        }
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') end--;
+        out.setLength(end);
+        return out.toString();
+    }
+
+    public record Stats(long documents, long pages, long pagesWithoutText, long bytes,
+                        double pagesPerSecond, double megabytesPerSecond) {}
+}
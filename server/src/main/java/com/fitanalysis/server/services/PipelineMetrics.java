@@ -0,0 +1,114 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.SourceType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers, counters and trace spans for the analysis and ingestion paths. Each stage runs inside an
+ * {@link Observation} named {@code fitanalysis.<stage>} and tagged with an operation; Actuator records it
+ * as a timer (with percentile histograms, see ObservabilityConfig) and the tracing bridge as a span whose
+ * parent is the observation current on the calling thread. Work handed to another thread keeps its
+ * parent through {@link #withCurrentObservation}.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String PREFIX = "fitanalysis.";
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Runs {@code work} as a child of the current observation, timing it under fitanalysis.{@code stage}. */
+    public <T, E extends Throwable> T observe(String stage, String operation, Observation.CheckedCallable<T, E> work) throws E {
+        return Observation.createNotStarted(PREFIX + stage, observationRegistry)
+            .lowCardinalityKeyValue("operation", operation)
+            .observeChecked(work);
+    }
+
+    public <E extends Throwable> void observe(String stage, String operation, Observation.CheckedRunnable<E> work) throws E {
+        Observation.createNotStarted(PREFIX + stage, observationRegistry)
+            .lowCardinalityKeyValue("operation", operation)
+            .observeChecked(work);
+    }
+
+    /** Starts an observation the caller scopes and stops, for work that spans several calls. */
+    public Observation start(String stage, String operation) {
+        return Observation.createNotStarted(PREFIX + stage, observationRegistry)
+            .lowCardinalityKeyValue("operation", operation)
+            .start();
+    }
+
+    /** Wraps {@code work} so that, on whichever thread runs it, the caller's observation is its parent. */
+    public <T> Supplier<T> withCurrentObservation(Supplier<T> work) {
+        Observation parent = observationRegistry.getCurrentObservation();
+        if (parent == null) {
+            return work;
+        }
+        return () -> {
+            try (Observation.Scope scope = parent.openScope()) {
+                return work.get();
+            }
+        };
+    }
+
+    public Observation currentObservation() {
+        return observationRegistry.getCurrentObservation();
+    }
+
+    public void chunksIngested(SourceType sourceType, int count) {
+        meterRegistry.counter(PREFIX + "chunks.ingested", "source_type", sourceType.name()).increment(count);
+    }
+
+    /** One item (a paper, or a batch of its chunks) leaving ingestion stage {@code stage}; outcome is processed, skipped or failed. */
+    public void ingestionItem(String stage, String outcome) {
+        meterRegistry.counter(PREFIX + "ingestion.items", "stage", stage, "outcome", outcome).increment();
+    }
+
+    /** Items waiting in front of ingestion stage {@code stage}, sampled from {@code depth}. */
+    public void ingestionQueueGauge(String stage, Supplier<Number> depth) {
+        Gauge.builder(PREFIX + "ingestion.queue", depth).tag("stage", stage).register(meterRegistry);
+    }
+
+    public void cacheHit(String cache) {
+        meterRegistry.counter(PREFIX + "cache.requests", "cache", cache, "result", "hit").increment();
+    }
+
+    public void cacheMiss(String cache) {
+        cacheMisses(cache, 1);
+    }
+
+    public void cacheMisses(String cache, int count) {
+        meterRegistry.counter(PREFIX + "cache.requests", "cache", cache, "result", "miss").increment(count);
+    }
+
+    public void llmParseFailure(String stage) {
+        meterRegistry.counter(PREFIX + "llm.parse.failures", "stage", stage).increment();
+    }
+
+    /**
+     * Estimated size of an LLM prompt, as a distribution per operation and section, and as a tag on the
+     * current observation so a trace shows the prompt size next to the call's latency.
+     */
+    public void promptTokens(String operation, String section, int tokens) {
+        meterRegistry.summary(PREFIX + "llm.prompt.tokens", "operation", operation, "section", section).record(tokens);
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null) {
+            current.highCardinalityKeyValue("prompt_tokens", Integer.toString(tokens));
+        }
+    }
+
+    /** One upstream HTTP attempt by {@code client}; outcome is success, retry, hedge, rejected or failure. */
+    public void httpAttempt(String client, String outcome) {
+        meterRegistry.counter(PREFIX + "http.attempts", "client", client, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,229 @@
+package com.fitanalysis.server.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed nearest-neighbour index that keeps only quantized codes in memory, laid out like
+ * {@link FlatVectorIndex}: one contiguous array of codes with a parallel long[] of chunk ids.
+ * {@link Encoding#INT8} stores each component of the unit vector as a signed byte with one scale per row
+ * (4x smaller than float); {@link Encoding#BINARY} stores only the sign bits and scores by Hamming distance
+ * (32x smaller). Scores are approximations, so callers ask for a shortlist larger than k and re-rank it
+ * against the full-precision embeddings.
+ */
+public class QuantizedVectorIndex implements VectorIndex {
+
+    public enum Encoding {
+        INT8(4),
+        // Sign bits keep far less of each vector, so the shortlist has to be much longer to hold the true top-k
+        BINARY(20);
+
+        private final int defaultRerankFactor;
+
+        Encoding(int defaultRerankFactor) {
+            this.defaultRerankFactor = defaultRerankFactor;
+        }
+
+        /** Shortlist length as a multiple of k when {@code retrieval.quantized.rerank-factor} is not set. */
+        public int defaultRerankFactor() {
+            return defaultRerankFactor;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Encoding encoding;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int dimension;
+    // Bytes per row for INT8, longs per row for BINARY
+    private int stride;
+    private int size;
+    private long[] ids = new long[0];
+    private byte[] bytes = new byte[0];
+    private float[] scales = new float[0];
+    private long[] bits = new long[0];
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    public QuantizedVectorIndex(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    @Override
+    public void add(long id, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+                stride = encoding == Encoding.INT8 ? dimension : (dimension + 63) >>> 6;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected embedding of dimension " + dimension + " but got " + vector.length);
+            }
+            if (rowById.containsKey(id)) {
+                // Already indexed, e.g. saved by ingestion while the startup load was running
+                return;
+            }
+            ensureCapacity(size + 1);
+            ids[size] = id;
+            rowById.put(id, size);
+            if (encoding == Encoding.INT8) {
+                scales[size] = quantizeInt8(VectorMath.normalizedCopy(vector), bytes, size * stride);
+            } else {
+                signBits(vector, bits, size * stride);
+            }
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return;
+            }
+            // Move the last row into the hole so the storage stays dense
+            int last = size - 1;
+            if (row != last) {
+                ids[row] = ids[last];
+                if (encoding == Encoding.INT8) {
+                    System.arraycopy(bytes, last * stride, bytes, row * stride, stride);
+                    scales[row] = scales[last];
+                } else {
+                    System.arraycopy(bits, last * stride, bits, row * stride, stride);
+                }
+                rowById.put(ids[row], row);
+            }
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Up to {@code k} hits by approximate score, best first; re-rank them before trusting the order. */
+    @Override
+    public List<SearchHit> search(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || k <= 0) {
+                return Collections.emptyList();
+            }
+            if (query.length != dimension) {
+                throw new IllegalArgumentException("Expected query of dimension " + dimension + " but got " + query.length);
+            }
+            TopK top = new TopK(Math.min(k, size));
+            if (encoding == Encoding.INT8) {
+                scanInt8(query, top);
+            } else {
+                scanBinary(query, top);
+            }
+            top.sortDescending();
+            List<SearchHit> hits = new ArrayList<>(top.size());
+            for (int i = 0; i < top.size(); i++) {
+                hits.add(new SearchHit(ids[top.row(i)], top.score(i)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Bytes of code storage per vector, excluding the chunk id. */
+    public int bytesPerVector() {
+        return encoding == Encoding.INT8 ? stride + Float.BYTES : stride * Long.BYTES;
+    }
+
+    // Integer dot product against the quantized query; the query's own scale is the same for every row,
+    // so it is left out of the score
+    private void scanInt8(float[] query, TopK top) {
+        byte[] quantizedQuery = new byte[dimension];
+        quantizeInt8(VectorMath.normalizedCopy(query), quantizedQuery, 0);
+        for (int row = 0, offset = 0; row < size; row++, offset += stride) {
+            float score = scales[row] * VectorMath.dot(quantizedQuery, 0, bytes, offset, dimension);
+            if (score > top.threshold()) {
+                top.offer(score, row);
+            }
+        }
+    }
+
+    // 1 - 2 * hamming / dimension: equal signs count +1, opposite signs -1
+    private void scanBinary(float[] query, TopK top) {
+        long[] queryBits = new long[stride];
+        signBits(query, queryBits, 0);
+        float scale = 2f / dimension;
+        for (int row = 0, offset = 0; row < size; row++, offset += stride) {
+            int hamming = 0;
+            for (int i = 0; i < stride; i++) {
+                hamming += Long.bitCount(bits[offset + i] ^ queryBits[i]);
+            }
+            float score = 1f - scale * hamming;
+            if (score > top.threshold()) {
+                top.offer(score, row);
+            }
+        }
+    }
+
+    // Symmetric per-row scaling so the largest component maps to +-127; returns the scale back to floats
+    private static float quantizeInt8(float[] vector, byte[] target, int offset) {
+        float max = 0f;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        if (max == 0f) {
+            return 0f;
+        }
+        float toCode = 127f / max;
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = (byte) Math.round(vector[i] * toCode);
+        }
+        return max / 127f;
+    }
+
+    private static void signBits(float[] vector, long[] target, int offset) {
+        // The row may hold a removed vector's bits
+        Arrays.fill(target, offset, offset + ((vector.length + 63) >>> 6), 0L);
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0f) {
+                target[offset + (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, ids.length);
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        ids = Arrays.copyOf(ids, capacity);
+        if (encoding == Encoding.INT8) {
+            bytes = Arrays.copyOf(bytes, capacity * stride);
+            scales = Arrays.copyOf(scales, capacity);
+        } else {
+            bits = Arrays.copyOf(bits, capacity * stride);
+        }
+    }
+}
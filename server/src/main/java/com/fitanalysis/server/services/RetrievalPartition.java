@@ -0,0 +1,25 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.SourceType;
+
+/**
+ * A slice of the knowledge base that retrieval can be restricted to. Each video's transcript is its own
+ * partition; research papers share a single one. A null {@code sourceId} covers every source of the type.
+ */
+public record RetrievalPartition(SourceType sourceType, String sourceId) {
+
+    private static final RetrievalPartition PAPERS = new RetrievalPartition(SourceType.RESEARCH_PAPER, null);
+
+    public static RetrievalPartition papers() {
+        return PAPERS;
+    }
+
+    public static RetrievalPartition video(String videoId) {
+        return new RetrievalPartition(SourceType.VIDEO, videoId);
+    }
+
+    public static RetrievalPartition of(KnowledgeChunk chunk) {
+        return chunk.getSourceType() == SourceType.VIDEO ? video(chunk.getSourceId()) : papers();
+    }
+}
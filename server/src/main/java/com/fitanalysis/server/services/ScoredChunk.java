@@ -0,0 +1,16 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+
+public class ScoredChunk {
+    private final KnowledgeChunk chunk;
+    private final double similarity;
+
+    public ScoredChunk(KnowledgeChunk chunk, double similarity) {
+        this.chunk = chunk;
+        this.similarity = similarity;
+    }
+
+    public KnowledgeChunk getChunk() { return chunk; }
+    public double getSimilarity() { return similarity; }
+}
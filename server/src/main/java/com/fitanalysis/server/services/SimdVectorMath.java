@@ -0,0 +1,58 @@
+package com.fitanalysis.server.services;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Only loaded when VectorMath.SIMD is true, i.e. the incubator module is in the boot layer
+final class SimdVectorMath {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    // 64 bits is the smallest vector shape, so it exists on every platform. Each load of 8 bytes widens into
+    // BYTE_PARTS int vectors: two on 128-bit hardware, one (zero-padded on 512-bit) otherwise
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_64;
+    private static final int BYTE_PARTS = Math.max(1, BYTE_SPECIES.length() / INT_SPECIES.length());
+
+    private SimdVectorMath() {}
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(dimension);
+        int i = 0;
+        for (; i < bound; i += step) {
+            FloatVector x = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector y = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            sum = x.fma(y, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < dimension; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int dimension) {
+        IntVector sum = IntVector.zero(INT_SPECIES);
+        int step = BYTE_SPECIES.length();
+        int bound = BYTE_SPECIES.loopBound(dimension);
+        int i = 0;
+        for (; i < bound; i += step) {
+            ByteVector x = ByteVector.fromArray(BYTE_SPECIES, a, aOffset + i);
+            ByteVector y = ByteVector.fromArray(BYTE_SPECIES, b, bOffset + i);
+            for (int part = 0; part < BYTE_PARTS; part++) {
+                IntVector xi = (IntVector) x.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                IntVector yi = (IntVector) y.convertShape(VectorOperators.B2I, INT_SPECIES, part);
+                sum = xi.mul(yi).add(sum);
+            }
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < dimension; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,361 @@
+package com.fitanalysis.server.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits text into overlapping chunks sized in tokens. Works in one pass over a {@link CharSequence} and
+ * reports chunks as [start, end) offsets, so callers only copy the chunks they keep. Chunks end at sentence
+ * boundaries where possible (text without punctuation, such as auto-captions, is cut between words) and
+ * keep the original punctuation. Consecutive chunks share up to {@code chunking.overlap-tokens} tokens.
+ */
+@Component
+public class TextChunker {
+
+    // Rough BPE rate for English prose: one token per four characters of a word, one per punctuation mark
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    public TextChunker(@Value("${chunking.max-tokens:256}") int maxTokens,
+                       @Value("${chunking.overlap-tokens:32}") int overlapTokens,
+                       @Value("${embedding.max-input-tokens:2048}") int embeddingMaxInputTokens) {
+        this.maxTokens = Math.max(8, Math.min(maxTokens, embeddingMaxInputTokens));
+        this.overlapTokens = Math.max(0, Math.min(overlapTokens, this.maxTokens / 2));
+    }
+
+    @FunctionalInterface
+    public interface SpanConsumer {
+        void accept(int start, int end, int tokens);
+    }
+
+    /** Reports every chunk of {@code text} as offsets, in order. */
+    public void forEachChunk(CharSequence text, SpanConsumer consumer) {
+        new Scanner(text).scan(0, true, consumer);
+    }
+
+    public List<String> chunkText(CharSequence text) {
+        List<String> chunks = new ArrayList<>();
+        forEachChunk(text, (start, end, tokens) -> chunks.add(text.subSequence(start, end).toString()));
+        return chunks;
+    }
+
+    /** Incremental chunking for text that arrives in pieces, such as the pages of a PDF. */
+    public ChunkBuilder builder() {
+        return new ChunkBuilder();
+    }
+
+    /** Estimated token count of {@code text}, using the same rule the chunker sizes chunks by. */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (isWordChar(c)) {
+                int j = i;
+                while (j < n && isWordChar(text.charAt(j))) j++;
+                tokens += wordTokens(j - i);
+                i = j;
+            } else {
+                if (!Character.isWhitespace(c)) tokens++;
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /** A chunk and the page its first character is on. */
+    public record Chunk(String text, int page) {}
+
+    /**
+     * Feeds text piece by piece: only the chunk being filled and the newest piece are buffered, and
+     * completed chunks come out exactly as {@link #forEachChunk} would produce them for the joined text.
+     * Callers that hand chunks on as they complete take them with {@link #drain}.
+     */
+    public final class ChunkBuilder {
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final StringBuilder buffer = new StringBuilder();
+        // Buffer offsets at which each appended piece starts, and the piece's page
+        private int[] markOffsets = new int[8];
+        private int[] markPages = new int[8];
+        private int marks;
+        private int chunkStart;
+
+        private ChunkBuilder() {}
+
+        public void append(CharSequence text, int page) {
+            if (buffer.length() > 0) {
+                buffer.append(' ');
+            }
+            if (marks == markOffsets.length) {
+                markOffsets = Arrays.copyOf(markOffsets, marks * 2);
+                markPages = Arrays.copyOf(markPages, marks * 2);
+            }
+            markOffsets[marks] = buffer.length();
+            markPages[marks] = page;
+            marks++;
+            buffer.append(text);
+            chunkStart = new Scanner(buffer).scan(chunkStart, false, this::emit);
+            compact();
+        }
+
+        /** Number of completed chunks not yet taken by {@link #drain}. */
+        public int completed() {
+            return chunks.size();
+        }
+
+        /** Takes the chunks completed so far; the open chunk stays buffered. */
+        public List<Chunk> drain() {
+            return drain(chunks.size());
+        }
+
+        /** Takes the oldest {@code max} completed chunks, or all of them if fewer. */
+        public List<Chunk> drain(int max) {
+            List<Chunk> taken = chunks.subList(0, Math.min(max, chunks.size()));
+            List<Chunk> done = new ArrayList<>(taken);
+            taken.clear();
+            return done;
+        }
+
+        /** Ends the input and returns the chunks not yet drained, the last one included. */
+        public List<Chunk> finish() {
+            new Scanner(buffer).scan(chunkStart, true, this::emit);
+            buffer.setLength(0);
+            marks = 0;
+            chunkStart = 0;
+            return drain();
+        }
+
+        private void emit(int start, int end, int tokens) {
+            chunks.add(new Chunk(buffer.substring(start, end), pageAt(start)));
+        }
+
+        private int pageAt(int offset) {
+            int page = marks > 0 ? markPages[0] : 0;
+            for (int i = 0; i < marks && markOffsets[i] <= offset; i++) {
+                page = markPages[i];
+            }
+            return page;
+        }
+
+        // Drops text before the open chunk, keeping the mark that covers its start
+        private void compact() {
+            if (chunkStart == 0) {
+                return;
+            }
+            int keepFrom = 0;
+            while (keepFrom + 1 < marks && markOffsets[keepFrom + 1] <= chunkStart) keepFrom++;
+            int kept = 0;
+            for (int i = keepFrom; i < marks; i++, kept++) {
+                markOffsets[kept] = Math.max(0, markOffsets[i] - chunkStart);
+                markPages[kept] = markPages[i];
+            }
+            marks = kept;
+            buffer.delete(0, chunkStart);
+            chunkStart = 0;
+        }
+    }
+
+    /**
+     * One pass over a text. A chunk is filled with pieces (sentences, or runs of words capped at
+     * maxTokens - overlapTokens when a sentence is longer) until the next piece doesn't fit; it is then
+     * emitted and the next chunk starts a little before its end, at a sentence start if one is close enough.
+     */
+    private final class Scanner {
+        private final CharSequence text;
+        private final int pieceLimit;
+        private int[] sentenceStarts = new int[16];
+        private int sentenceCount;
+        // Result of nextPiece
+        private int pieceEnd;
+        private int pieceTokens;
+        private boolean pieceEndsSentence;
+
+        Scanner(CharSequence text) {
+            this.text = text;
+            this.pieceLimit = Math.max(1, maxTokens - overlapTokens);
+        }
+
+        /** Emits every chunk that is complete; returns where the first unfinished chunk starts. */
+        int scan(int from, boolean endOfInput, SpanConsumer consumer) {
+            int chunkStart = skipWhitespace(from);
+            int position = chunkStart;
+            int chunkEnd = chunkStart;
+            int chunkTokens = 0;
+            sentenceCount = 0;
+            while (true) {
+                position = skipWhitespace(position);
+                boolean found = position < text.length() && nextPiece(position, endOfInput, pieceLimit);
+                if (!found) {
+                    if (endOfInput && chunkTokens > 0) {
+                        consumer.accept(chunkStart, chunkEnd, chunkTokens);
+                        return text.length();
+                    }
+                    return endOfInput ? text.length() : chunkStart;
+                }
+                if (chunkTokens > 0 && chunkTokens + pieceTokens > maxTokens) {
+                    // A long sentence is already being cut between words, so let it fill the rest of this chunk
+                    if (!pieceEndsSentence && nextPiece(position, endOfInput, maxTokens - chunkTokens) && pieceTokens > 0) {
+                        chunkTokens += pieceTokens;
+                        chunkEnd = pieceEnd;
+                    }
+                    consumer.accept(chunkStart, chunkEnd, chunkTokens);
+                    int next = skipWhitespace(overlapStart(chunkStart, chunkEnd));
+                    // Rescan from the overlap so chunk contents don't depend on where input pieces were split
+                    chunkStart = next;
+                    position = next;
+                    chunkEnd = next;
+                    chunkTokens = 0;
+                    sentenceCount = 0;
+                    continue;
+                }
+                if (pieceStartsSentence(position)) {
+                    addSentenceStart(position);
+                }
+                chunkTokens += pieceTokens;
+                chunkEnd = pieceEnd;
+                position = pieceEnd;
+            }
+        }
+
+        // Finds the piece starting at from, at most limit tokens long; false if the text ends before the
+        // piece is known to be complete
+        private boolean nextPiece(int from, boolean endOfInput, int limit) {
+            boolean wholePiece = limit == pieceLimit;
+            int n = text.length();
+            int i = from;
+            int tokens = 0;
+            int lastTokenEnd = from;
+            while (i < n) {
+                char c = text.charAt(i);
+                if (isWordChar(c)) {
+                    int j = i;
+                    while (j < n && isWordChar(text.charAt(j))) j++;
+                    if (j == n && !endOfInput) {
+                        return false;
+                    }
+                    int wordTokens = wordTokens(j - i);
+                    if (tokens + wordTokens > limit) {
+                        if (tokens > 0) {
+                            return piece(lastTokenEnd, tokens, false);
+                        }
+                        // A single "word" longer than a piece (URLs, base64): cut inside it
+                        return wholePiece && piece(i + limit * CHARS_PER_TOKEN, limit, false);
+                    }
+                    tokens += wordTokens;
+                    i = j;
+                    lastTokenEnd = j;
+                } else if (Character.isWhitespace(c)) {
+                    i++;
+                } else {
+                    if (tokens + 1 > limit) {
+                        return tokens > 0 && piece(lastTokenEnd, tokens, false);
+                    }
+                    tokens++;
+                    i++;
+                    lastTokenEnd = i;
+                    if (isTerminator(c)) {
+                        while (i < n && (isTerminator(text.charAt(i)) || isCloser(text.charAt(i)))) {
+                            if (tokens + 1 > limit) {
+                                // A run like "?!?!..." longer than the piece: cut it rather than overflow
+                                return piece(i, tokens, false);
+                            }
+                            tokens++;
+                            i++;
+                        }
+                        lastTokenEnd = i;
+                        if (i == n) {
+                            return endOfInput && piece(i, tokens, true);
+                        }
+                        if (Character.isWhitespace(text.charAt(i))) {
+                            return piece(i, tokens, true);
+                        }
+                    }
+                }
+            }
+            return endOfInput && tokens > 0 && piece(lastTokenEnd, tokens, true);
+        }
+
+        private boolean piece(int end, int tokens, boolean endsSentence) {
+            pieceEnd = end;
+            pieceTokens = tokens;
+            pieceEndsSentence = endsSentence;
+            return true;
+        }
+
+        // Walks back from the chunk end over at most overlapTokens tokens, then snaps to a sentence start
+        private int overlapStart(int chunkStart, int chunkEnd) {
+            int start = chunkEnd;
+            int tokens = 0;
+            int i = chunkEnd;
+            while (i > chunkStart) {
+                char c = text.charAt(i - 1);
+                if (Character.isWhitespace(c)) {
+                    i--;
+                    continue;
+                }
+                int j = i;
+                int cost;
+                if (isWordChar(c)) {
+                    while (j > chunkStart && isWordChar(text.charAt(j - 1))) j--;
+                    cost = wordTokens(i - j);
+                } else {
+                    j = i - 1;
+                    cost = 1;
+                }
+                if (j <= chunkStart || tokens + cost > overlapTokens) {
+                    break;
+                }
+                tokens += cost;
+                start = j;
+                i = j;
+            }
+            for (int s = 0; s < sentenceCount; s++) {
+                if (sentenceStarts[s] >= start && sentenceStarts[s] > chunkStart) {
+                    return sentenceStarts[s] < chunkEnd ? sentenceStarts[s] : start;
+                }
+            }
+            return start;
+        }
+
+        private boolean pieceStartsSentence(int position) {
+            int i = position - 1;
+            while (i >= 0 && Character.isWhitespace(text.charAt(i))) i--;
+            return i < 0 || isTerminator(text.charAt(i)) || isCloser(text.charAt(i));
+        }
+
+        private void addSentenceStart(int position) {
+            if (sentenceCount == sentenceStarts.length) {
+                sentenceStarts = Arrays.copyOf(sentenceStarts, sentenceCount * 2);
+            }
+            sentenceStarts[sentenceCount++] = position;
+        }
+
+        private int skipWhitespace(int i) {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+            return i;
+        }
+    }
+
+    private static int wordTokens(int length) {
+        return (length + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'' || c == '’';
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private static boolean isCloser(char c) {
+        return c == '"' || c == '”' || c == ')' || c == ']' || c == '\'';
+    }
+}
@@ -0,0 +1,81 @@
+package com.fitanalysis.server.services;
+
+/**
+ * Bounded min-heap over primitive (score, row) pairs that keeps the k highest scores seen.
+ * Offering a candidate never allocates, so a scan over every stored vector produces no garbage per row.
+ */
+final class TopK {
+
+    private final float[] scores;
+    private final int[] rows;
+    private int size;
+
+    TopK(int k) {
+        scores = new float[k];
+        rows = new int[k];
+    }
+
+    /** Lowest score that still gets in once the heap is full. */
+    float threshold() {
+        if (size < scores.length) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return size == 0 ? Float.POSITIVE_INFINITY : scores[0];
+    }
+
+    void offer(float score, int row) {
+        if (size < scores.length) {
+            int i = size++;
+            // Sift up
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) break;
+                scores[i] = scores[parent];
+                rows[i] = rows[parent];
+                i = parent;
+            }
+            scores[i] = score;
+            rows[i] = row;
+        } else if (size > 0 && score > scores[0]) {
+            siftDown(0, score, row, size);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Sorts the kept entries best first, after which {@link #score} and {@link #row} index them in order. */
+    void sortDescending() {
+        // Heapsort: moving each minimum to the end leaves the array in descending order
+        for (int end = size - 1; end > 0; end--) {
+            float score = scores[end];
+            int row = rows[end];
+            scores[end] = scores[0];
+            rows[end] = rows[0];
+            siftDown(0, score, row, end);
+        }
+    }
+
+    float score(int i) {
+        return scores[i];
+    }
+
+    int row(int i) {
+        return rows[i];
+    }
+
+    private void siftDown(int i, float score, int row, int heapSize) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && scores[child + 1] < scores[child]) child++;
+            if (scores[child] >= score) break;
+            scores[i] = scores[child];
+            rows[i] = rows[child];
+            i = child;
+        }
+        scores[i] = score;
+        rows[i] = row;
+    }
+}
@@ -0,0 +1,22 @@
+package com.fitanalysis.server.services;
+
+import java.util.List;
+
+/**
+ * Nearest-neighbour index over chunk embeddings, keyed by chunk id.
+ * Implementations must be safe for concurrent inserts from the ingestion paths while searches run.
+ */
+public interface VectorIndex {
+
+    void add(long id, float[] vector);
+
+    /** Removes the vector for {@code id} if present; later searches no longer return it. */
+    void remove(long id);
+
+    /** Returns up to {@code k} hits ordered by descending similarity. */
+    List<SearchHit> search(float[] query, int k);
+
+    int size();
+
+    record SearchHit(long chunkId, double score) {}
+}
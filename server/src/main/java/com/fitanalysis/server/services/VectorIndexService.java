@@ -0,0 +1,188 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.SourceType;
+import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resident in-memory index of every chunk embedding. Loaded once at startup and kept current by the
+ * ingestion paths, so retrieval never has to go through JPA entities or re-parse embedding strings.
+ * Vectors are held in one index per {@link RetrievalPartition}, so a search restricted to a partition
+ * only scores that partition's chunks. {@code retrieval.index.type} selects an exact flat scan, an
+ * approximate HNSW graph, or int8/binary quantized codes for the shared papers partition; per-video
+ * partitions are a few hundred chunks at most and always use the flat scan.
+ */
+@Service
+public class VectorIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexService.class);
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    @Autowired
+    private KnowledgeChunkRepository knowledgeChunkRepository;
+
+    @Value("${retrieval.mode:memory}")
+    private String retrievalMode;
+
+    @Value("${retrieval.index.type:flat}")
+    private String indexType;
+
+    @Value("${retrieval.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${retrieval.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${retrieval.hnsw.ef-search:64}")
+    private int hnswEfSearch;
+
+    // 0 uses the encoding's own default
+    @Value("${retrieval.quantized.rerank-factor:0}")
+    private int rerankFactor;
+
+    @Value("${retrieval.hnsw.recall-sample-size:100}")
+    private int recallSampleSize;
+
+    private final Map<RetrievalPartition, VectorIndex> partitions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void validateIndexType() {
+        if (!List.of("flat", "hnsw", "int8", "binary").contains(indexType.toLowerCase())) {
+            throw new IllegalStateException("Unknown retrieval.index.type: " + indexType);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        if (!isEnabled()) {
+            log.info("Retrieval mode is {}, skipping in-memory vector index load", retrievalMode);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int pageNumber = 0;
+        Page<KnowledgeChunk> page;
+        do {
+            page = knowledgeChunkRepository.findAll(PageRequest.of(pageNumber++, LOAD_PAGE_SIZE, Sort.by("id")));
+            for (KnowledgeChunk chunk : page) {
+                add(chunk);
+            }
+        } while (page.hasNext());
+        log.info("Loaded {} chunk embeddings into {} vector index partitions in {} ms, scoring with the {} dot product",
+                size(), partitions.size(), System.currentTimeMillis() - start, VectorMath.SIMD ? "Vector API" : "scalar");
+        if (partitions.get(RetrievalPartition.papers()) instanceof HnswVectorIndex) {
+            log.info("HNSW recall@10 against exact search: {}", measureRecall(10, recallSampleSize));
+        }
+        if (partitions.get(RetrievalPartition.papers()) instanceof QuantizedVectorIndex quantized) {
+            log.info("Papers partition holds {} {} codes of {} bytes each, re-ranking {}x shortlists",
+                    quantized.size(), quantized.encoding(), quantized.bytesPerVector(), rerankFactor(quantized));
+        }
+    }
+
+    public boolean isEnabled() {
+        return "memory".equalsIgnoreCase(retrievalMode);
+    }
+
+    public void add(KnowledgeChunk chunk, float[] embedding) {
+        if (isEnabled()) {
+            partitions.computeIfAbsent(RetrievalPartition.of(chunk), this::createIndex).add(chunk.getId(), embedding);
+        }
+    }
+
+    public void remove(RetrievalPartition partition, Collection<Long> chunkIds) {
+        VectorIndex index = partitions.get(partition);
+        if (index != null) {
+            for (Long chunkId : chunkIds) {
+                index.remove(chunkId);
+            }
+        }
+    }
+
+    /** Top-k within {@code partition} only; empty if nothing has been indexed there. */
+    public List<VectorIndex.SearchHit> search(RetrievalPartition partition, float[] queryEmbedding, int k) {
+        VectorIndex index = partitions.get(partition);
+        return index == null ? List.of() : index.search(queryEmbedding, k);
+    }
+
+    /**
+     * How many candidates to fetch from {@code partition} for a top-k answer. Quantized partitions return
+     * approximate scores, so they are asked for a larger shortlist that the caller re-ranks against the
+     * full-precision embeddings.
+     */
+    public int shortlistSize(RetrievalPartition partition, int k) {
+        return partitions.get(partition) instanceof QuantizedVectorIndex quantized ? k * rerankFactor(quantized) : k;
+    }
+
+    public int size() {
+        int size = 0;
+        for (VectorIndex index : partitions.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    /**
+     * Fraction of the exact top-k that the papers HNSW graph also returns, averaged over stored vectors
+     * used as queries. Returns 1.0 for the flat index, which is exact by construction.
+     */
+    public double measureRecall(int k, int sampleSize) {
+        if (!(partitions.get(RetrievalPartition.papers()) instanceof HnswVectorIndex hnsw) || hnsw.size() == 0) {
+            return 1.0;
+        }
+        long found = 0;
+        long expected = 0;
+        for (float[] query : hnsw.sampleLiveVectors(Math.min(sampleSize, hnsw.size()), new SplittableRandom(7))) {
+            Set<Long> exactIds = new HashSet<>();
+            for (VectorIndex.SearchHit hit : hnsw.exactSearch(query, k)) {
+                exactIds.add(hit.chunkId());
+            }
+            for (VectorIndex.SearchHit hit : hnsw.search(query, k)) {
+                if (exactIds.contains(hit.chunkId())) found++;
+            }
+            expected += exactIds.size();
+        }
+        return expected == 0 ? 1.0 : (double) found / expected;
+    }
+
+    private void add(KnowledgeChunk chunk) {
+        if (chunk.getEmbedding() == null || chunk.getEmbedding().length == 0) {
+            return;
+        }
+        add(chunk, chunk.getEmbedding());
+    }
+
+    private int rerankFactor(QuantizedVectorIndex index) {
+        return rerankFactor > 0 ? rerankFactor : index.encoding().defaultRerankFactor();
+    }
+
+    private VectorIndex createIndex(RetrievalPartition partition) {
+        if (partition.sourceType() != SourceType.RESEARCH_PAPER) {
+            return new FlatVectorIndex();
+        }
+        return switch (indexType.toLowerCase()) {
+            case "hnsw" -> new HnswVectorIndex(hnswM, hnswEfConstruction, hnswEfSearch);
+            case "int8" -> new QuantizedVectorIndex(QuantizedVectorIndex.Encoding.INT8);
+            case "binary" -> new QuantizedVectorIndex(QuantizedVectorIndex.Encoding.BINARY);
+            default -> new FlatVectorIndex();
+        };
+    }
+}
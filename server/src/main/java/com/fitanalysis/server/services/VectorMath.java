@@ -0,0 +1,88 @@
+package com.fitanalysis.server.services;
+
+/**
+ * Scoring kernels for the resident indexes. Stored and query vectors are normalised to unit length once,
+ * so cosine similarity is a plain dot product. The dot product runs on the JDK Vector API when the JVM
+ * was started with {@code --add-modules jdk.incubator.vector}, and on an unrolled scalar loop otherwise.
+ */
+final class VectorMath {
+
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorMath() {}
+
+    static float dot(float[] query, float[] data, int offset, int dimension) {
+        return dot(query, 0, data, offset, dimension);
+    }
+
+    static float dot(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        return SIMD ? SimdVectorMath.dot(a, aOffset, b, bOffset, dimension) : scalarDot(a, aOffset, b, bOffset, dimension);
+    }
+
+    // Four independent accumulators so the adds don't serialise on one register
+    static float scalarDot(float[] a, int aOffset, float[] b, int bOffset, int dimension) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int dimension) {
+        return SIMD ? SimdVectorMath.dot(a, aOffset, b, bOffset, dimension) : scalarDot(a, aOffset, b, bOffset, dimension);
+    }
+
+    static int scalarDot(byte[] a, int aOffset, byte[] b, int bOffset, int dimension) {
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < dimension; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Scales data[offset, offset + dimension) to unit length in place; zero vectors are left as they are. */
+    static void normalize(float[] data, int offset, int dimension) {
+        double norm = Math.sqrt(dot(data, offset, data, offset, dimension));
+        if (norm == 0.0) {
+            return;
+        }
+        float scale = (float) (1.0 / norm);
+        for (int i = 0; i < dimension; i++) {
+            data[offset + i] *= scale;
+        }
+    }
+
+    /** A unit-length copy; the argument may be shared (e.g. with the embedding cache) and is left untouched. */
+    static float[] normalizedCopy(float[] vector) {
+        float[] copy = vector.clone();
+        normalize(copy, 0, copy.length);
+        return copy;
+    }
+
+    /** Cosine similarity of vectors that are not known to be normalised. */
+    static double cosineSimilarity(float[] query, float[] data, int offset, int dimension) {
+        double dot = 0.0, normA = 0.0, normB = 0.0;
+        for (int i = 0; i < dimension; i++) {
+            float x = query[i];
+            float y = data[offset + i];
+            dot += x * y;
+            normA += x * x;
+            normB += y * y;
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB) + 1e-10);
+    }
+}
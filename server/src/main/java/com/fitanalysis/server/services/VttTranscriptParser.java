@@ -0,0 +1,237 @@
+package com.fitanalysis.server.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming WebVTT to plain-text parser. Reads line by line with hand-written matchers (no regex), strips
+ * inline timing/style tags and drops the rolling duplicates of YouTube auto-captions, where each cue
+ * starts by repeating the previous cue's last line(s) before adding a new one. Only that carried-over
+ * prefix is dropped, so a short line that is genuinely said twice ("yeah", "yeah") is kept.
+ */
+public final class VttTranscriptParser {
+
+    private VttTranscriptParser() {}
+
+    public static VttTranscript parse(Path vttFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(vttFile, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    public static VttTranscript parse(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader b ? b : new BufferedReader(source);
+        StringBuilder text = new StringBuilder();
+        CueTimeline timeline = new CueTimeline();
+        StringBuilder scratch = new StringBuilder();
+        List<String> previousCue = new ArrayList<>();
+        List<String> currentCue = new ArrayList<>();
+        long cueStartMillis = -1;
+        // Auto-captions carry inline word timestamps; only those roll lines over from cue to cue
+        boolean rolling = false;
+        boolean inHeader = true;
+        boolean skippingBlock = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                inHeader = false;
+                skippingBlock = false;
+                continue;
+            }
+            if (inHeader || skippingBlock) {
+                // WEBVTT header block (Kind:, Language:) or a NOTE/STYLE/REGION block
+                continue;
+            }
+            if (line.startsWith("NOTE") || line.startsWith("STYLE") || line.startsWith("REGION")) {
+                skippingBlock = true;
+                continue;
+            }
+            int arrow = line.indexOf("-->");
+            if (arrow >= 0) {
+                emitCue(currentCue, previousCue, rolling, cueStartMillis, text, timeline);
+                List<String> emitted = previousCue;
+                previousCue = currentCue;
+                currentCue = emitted;
+                currentCue.clear();
+                cueStartMillis = parseTimestamp(line, 0, arrow);
+                continue;
+            }
+            if (isDigits(line)) {
+                // Cue identifier
+                continue;
+            }
+            if (!rolling && line.indexOf("<0") >= 0) {
+                rolling = true;
+            }
+            String cleaned = stripTags(line, scratch);
+            if (!cleaned.isEmpty()) {
+                currentCue.add(cleaned);
+            }
+        }
+        emitCue(currentCue, previousCue, rolling, cueStartMillis, text, timeline);
+        return new VttTranscript(text.toString(), timeline.offsets(), timeline.startMillis());
+    }
+
+    // Appends the lines of a finished cue, minus the leading lines that repeat the previous cue's tail
+    private static void emitCue(List<String> cue, List<String> previousCue, boolean rolling, long cueStartMillis,
+                                StringBuilder text, CueTimeline timeline) {
+        int carried = rolling ? carriedOver(previousCue, cue) : 0;
+        for (int i = carried; i < cue.size(); i++) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            if (cueStartMillis >= 0) {
+                timeline.add(text.length(), cueStartMillis);
+            }
+            text.append(cue.get(i));
+        }
+    }
+
+    // Length of the longest prefix of cue that equals a suffix of previous
+    private static int carriedOver(List<String> previous, List<String> cue) {
+        for (int length = Math.min(previous.size(), cue.size()); length > 0; length--) {
+            int offset = previous.size() - length;
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++) {
+                matches = cue.get(i).equals(previous.get(offset + i));
+            }
+            if (matches) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    // Removes <...> tags (inline timestamps, <c>, <i>, ...), decodes the common entities and trims
+    private static String stripTags(String line, StringBuilder out) {
+        out.setLength(0);
+        boolean inTag = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inTag) {
+                if (c == '>') inTag = false;
+            } else if (c == '<') {
+                inTag = true;
+            } else if (c == '&') {
+                int end = line.indexOf(';', i);
+                String decoded = end > i ? decodeEntity(line, i + 1, end) : null;
+                if (decoded != null) {
+                    out.append(decoded);
+                    i = end;
+                } else {
+                    out.append(c);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        int start = 0;
+        int end = out.length();
+        while (start < end && Character.isWhitespace(out.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(out.charAt(end - 1))) end--;
+        return out.substring(start, end);
+    }
+
+    private static String decodeEntity(String line, int from, int to) {
+        switch (line.substring(from, to)) {
+            case "amp": return "&";
+            case "lt": return "<";
+            case "gt": return ">";
+            case "quot": return "\"";
+            case "#39": return "'";
+            case "nbsp": return " ";
+            default: return null;
+        }
+    }
+
+    private static boolean isDigits(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    // Parses [hh:]mm:ss.mmm at the start of line[from, to); returns -1 if it isn't a timestamp
+    static long parseTimestamp(CharSequence line, int from, int to) {
+        long millis = 0;
+        long field = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                field = field * 10 + (c - '0');
+                digits++;
+            } else if (c == ':' && !fraction) {
+                millis = (millis + field) * 60;
+                field = 0;
+                digits = 0;
+            } else if (c == '.' && !fraction) {
+                millis = (millis + field) * 1000;
+                field = 0;
+                digits = 0;
+                fraction = true;
+            } else if (c == ' ' || c == '\t') {
+                if (digits > 0) break;
+            } else {
+                return -1;
+            }
+        }
+        if (!fraction || digits != 3) {
+            return -1;
+        }
+        return millis + field;
+    }
+
+    /** Cleaned transcript text plus the start time of the cue that produced each stretch of it. */
+    public static final class VttTranscript {
+        private final String text;
+        private final int[] cueOffsets;
+        private final long[] cueStartMillis;
+
+        VttTranscript(String text, int[] cueOffsets, long[] cueStartMillis) {
+            this.text = text;
+            this.cueOffsets = cueOffsets;
+            this.cueStartMillis = cueStartMillis;
+        }
+
+        public String getText() { return text; }
+
+        /** Start time in ms of the cue covering {@code charOffset} of the text, or -1 if unknown. */
+        public long startMillisAt(int charOffset) {
+            int index = Arrays.binarySearch(cueOffsets, charOffset);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index < 0 ? -1 : cueStartMillis[index];
+        }
+    }
+
+    private static final class CueTimeline {
+        private int[] offsets = new int[64];
+        private long[] startMillis = new long[64];
+        private int size;
+
+        void add(int offset, long millis) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                startMillis = Arrays.copyOf(startMillis, size * 2);
+            }
+            offsets[size] = offset;
+            startMillis[size] = millis;
+            size++;
+        }
+
+        int[] offsets() { return Arrays.copyOf(offsets, size); }
+        long[] startMillis() { return Arrays.copyOf(startMillis, size); }
+    }
+}
@@ -0,0 +1,49 @@
+package com.fitanalysis.server.services;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Recognises the YouTube URL shapes users paste: single videos, playlists and channels. */
+public final class YouTubeUrls {
+
+    private static final String ID = "([a-zA-Z0-9_-]+)";
+
+    // watch?v= anywhere in the query string, youtu.be/, shorts/, embed/, live/ and /v/ links
+    private static final Pattern VIDEO = Pattern.compile(
+        "(?:youtube(?:-nocookie)?\\.com/(?:watch\\?(?:[^#]*&)?v=|shorts/|embed/|live/|v/)|youtu\\.be/)" + ID);
+
+    private static final Pattern PLAYLIST = Pattern.compile("youtube\\.com/(?:playlist|watch)\\?(?:[^#]*&)?list=([a-zA-Z0-9_-]+)");
+
+    private static final Pattern CHANNEL = Pattern.compile("youtube\\.com/(?:@[^/?#]+|channel/[^/?#]+|c/[^/?#]+|user/[^/?#]+)");
+
+    private static final Pattern CHANNEL_TAB = Pattern.compile("/(?:videos|shorts|streams|playlists)(?:[/?#]|$)");
+
+    private YouTubeUrls() {}
+
+    /** @throws IllegalArgumentException if {@code url} does not point at a single video */
+    public static String videoId(String url) {
+        Matcher matcher = VIDEO.matcher(url);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        throw new IllegalArgumentException("Invalid YouTube URL: " + url);
+    }
+
+    /** True for playlist and channel URLs, which bulk analysis expands into their videos. */
+    public static boolean isCollection(String url) {
+        return PLAYLIST.matcher(url).find() || CHANNEL.matcher(url).find();
+    }
+
+    /** The URL to list for {@code url}: a channel without a tab gets its uploads tab, anything else is as given. */
+    public static String listingUrl(String url) {
+        if (PLAYLIST.matcher(url).find() || !CHANNEL.matcher(url).find() || CHANNEL_TAB.matcher(url).find()) {
+            return url;
+        }
+        String base = url.replaceFirst("[?#].*$", "");
+        return (base.endsWith("/") ? base : base + "/") + "videos";
+    }
+
+    public static String watchUrl(String videoId) {
+        return "https://www.youtube.com/watch?v=" + videoId;
+    }
+}
@@ -1,155 +1,241 @@
 package com.fitanalysis.server.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 @Service
 public class YtDlpService {
     
-    public Map<String, Object> extractVideoInfo(String videoUrl) throws IOException, InterruptedException {
-        System.out.println("Starting video info extraction for: " + videoUrl);
-        
-        // First, extract basic video info without JSON dump
-        Map<String, Object> videoInfo = extractBasicInfo(videoUrl);
-        
-        // Then extract transcript
-        String transcript = extractVttTranscript(videoUrl);
-        videoInfo.put("transcript", transcript);
-        
-        System.out.println("Video info extraction completed");
-        return videoInfo;
-    }
+    private static final Logger log = LoggerFactory.getLogger(YtDlpService.class);
     
-    private Map<String, Object> extractBasicInfo(String videoUrl) throws IOException, InterruptedException {
-        Map<String, Object> result = new HashMap<>();
-        
-        // Get title using --get-title
-        ProcessBuilder titlePb = new ProcessBuilder("yt-dlp", "--get-title", videoUrl);
-        Process titleProcess = titlePb.start();
-        boolean titleCompleted = titleProcess.waitFor(30, java.util.concurrent.TimeUnit.SECONDS);
-        
-        if (titleCompleted && titleProcess.exitValue() == 0) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(titleProcess.getInputStream()));
-            String title = reader.readLine();
-            if (title != null) {
-                result.put("title", title);
-                System.out.println("Extracted title: " + title);
+    @Autowired
+    private PipelineMetrics metrics;
+    
+    @Autowired
+    private ConcurrencyLimiter ytDlpConcurrencyLimiter;
+    
+    @Autowired
+    private ExecutorService ytDlpPipeExecutor;
+    
+    // Overridable so tests can run against a local stub script instead of the real yt-dlp
+    @Value("${ytdlp.binary:yt-dlp}")
+    private String ytDlpBinary;
+    
+    @Value("${ytdlp.output-dir:.}")
+    private String outputDir;
+    
+    @Value("${ytdlp.timeout-seconds:90}")
+    private long timeoutSeconds;
+    
+    // Listing a large channel pages through its whole upload history
+    @Value("${ytdlp.list-timeout-seconds:600}")
+    private long listTimeoutSeconds;
+    
+    private static final Pattern VIDEO_ID = Pattern.compile("[a-zA-Z0-9_-]+");
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Map<String, Object>> metadataCache;
+    
+    public YtDlpService(@Value("${ytdlp.metadata-cache.max-entries:256}") int maxCachedVideos) {
+        this.metadataCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > maxCachedVideos;
             }
+        });
+    }
+    
+    public Map<String, Object> extractVideoInfo(String videoUrl) throws IOException, InterruptedException {
+        String videoId = extractVideoId(videoUrl);
+        Map<String, Object> cached = metadataCache.get(videoId);
+        if (cached != null) {
+            metrics.cacheHit("video_info");
+            log.debug("Using cached video info for videoId={}", videoId);
+            return new HashMap<>(cached);
         }
-        
-        // Get uploader using --get-uploader
-        ProcessBuilder uploaderPb = new ProcessBuilder("yt-dlp", "--get-uploader", videoUrl);
-        Process uploaderProcess = uploaderPb.start();
-        boolean uploaderCompleted = uploaderProcess.waitFor(30, java.util.concurrent.TimeUnit.SECONDS);
-        
-        if (uploaderCompleted && uploaderProcess.exitValue() == 0) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(uploaderProcess.getInputStream()));
-            String uploader = reader.readLine();
-            if (uploader != null) {
-                result.put("channel", uploader);
-                System.out.println("Extracted uploader: " + uploader);
-            }
+        metrics.cacheMiss("video_info");
+        log.info("Extracting video info for videoId={}", videoId);
+        FetchedVideoInfo fetched;
+        Observation observation = metrics.start("ytdlp", "video_info");
+        try (Observation.Scope scope = observation.openScope()) {
+            fetched = fetchVideoInfo(videoUrl, videoId);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
         }
-        
-        return result;
+        // A run that exited with an error may have missed the subtitles; leave it uncached so the next call retries
+        if (fetched.complete()) {
+            metadataCache.put(videoId, fetched.info());
+        }
+        return new HashMap<>(fetched.info());
     }
     
-    private String extractVttTranscript(String videoUrl) throws IOException, InterruptedException {
-        System.out.println("Extracting transcript for: " + videoUrl);
-        
-        // Extract video ID from URL
-        String videoId = extractVideoId(videoUrl);
-        System.out.println("Video ID: " + videoId);
-        
-        // Download transcript using yt-dlp
+    private record FetchedVideoInfo(Map<String, Object> info, boolean complete) {}
+    
+    // One yt-dlp process: -j prints the metadata JSON and --no-simulate still writes the auto subtitles.
+    // Throws if it timed out, or failed without printing metadata; a failure after the metadata comes back incomplete.
+    private FetchedVideoInfo fetchVideoInfo(String videoUrl, String videoId) throws IOException, InterruptedException {
         ProcessBuilder pb = new ProcessBuilder(
-            "yt-dlp", 
-            "--write-auto-sub", 
+            ytDlpBinary,
+            "--dump-json",
+            "--no-simulate",
+            "--write-auto-sub",
             "--sub-format", "vtt",
             "--skip-download",
-            "--output", videoId + ".%(ext)s",
+            "--output", Paths.get(outputDir, videoId + ".%(ext)s").toString(),
             videoUrl
         );
         
-        System.out.println("Running yt-dlp command for transcript...");
-        Process process = pb.start();
-        boolean completed = process.waitFor(60, java.util.concurrent.TimeUnit.SECONDS);
+        Process process;
+        CompletableFuture<byte[]> stdout;
+        CompletableFuture<byte[]> stderr;
+        boolean completed;
+        try (ConcurrencyLimiter.Permit permit = ytDlpConcurrencyLimiter.acquire()) {
+            process = pb.start();
+            try {
+                // Drain both pipes while waiting so a large JSON dump can't block the child on a full pipe
+                stdout = readAsync(process.getInputStream());
+                stderr = readAsync(process.getErrorStream());
+                completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            } finally {
+                destroyIfAlive(process);
+            }
+        }
         
         if (!completed) {
-            process.destroyForcibly();
-            System.err.println("yt-dlp timed out after 60 seconds");
-            return "";
+            throw new IOException("yt-dlp timed out after " + timeoutSeconds + " s for videoId=" + videoId);
         }
         
+        byte[] json = stdout.join();
         int exitCode = process.exitValue();
-        System.out.println("yt-dlp exit code: " + exitCode);
-        
         if (exitCode != 0) {
-            // Read error output
-            BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            StringBuilder errorOutput = new StringBuilder();
-            String line;
-            while ((line = errorReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
+            String error = new String(stderr.join(), StandardCharsets.UTF_8).trim();
+            if (json.length == 0) {
+                throw new IOException("yt-dlp exited with code " + exitCode + " for videoId=" + videoId + ": " + error);
             }
-            System.err.println("yt-dlp error output: " + errorOutput.toString());
-            return "";
+            log.warn("yt-dlp exited with code {} for videoId={}: {}", exitCode, videoId, error);
         }
         
-        // Look for VTT file
-        String vttFile = videoId + ".en.vtt";
-        System.out.println("Looking for VTT file: " + vttFile);
-        
-        // Read and clean VTT content
-        String transcript = cleanVttContent(vttFile);
-        System.out.println("Transcript length: " + transcript.length());
+        Map<String, Object> result = new HashMap<>();
+        if (json.length > 0) {
+            JsonNode info = objectMapper.readTree(json);
+            if (info.hasNonNull("title")) {
+                result.put("title", info.get("title").asText());
+            }
+            if (info.hasNonNull("uploader")) {
+                result.put("channel", info.get("uploader").asText());
+            }
+        }
         
-        return transcript;
+        Path vttFile = Paths.get(outputDir, videoId + ".en.vtt");
+        String transcript = "";
+        if (Files.exists(vttFile)) {
+            VttTranscriptParser.VttTranscript parsed = VttTranscriptParser.parse(vttFile);
+            transcript = parsed.getText();
+            result.put("transcript_timeline", parsed);
+            log.info("Parsed transcript for videoId={}: title=\"{}\", chars={}, vttBytes={}",
+                videoId, result.get("title"), transcript.length(), Files.size(vttFile));
+        }
+        result.put("transcript", transcript);
+        return new FetchedVideoInfo(result, exitCode == 0);
     }
     
-    private String extractVideoId(String videoUrl) {
-        Pattern pattern = Pattern.compile("(?:youtube\\.com/watch\\?v=|youtu\\.be/)([a-zA-Z0-9_-]+)");
-        Matcher matcher = pattern.matcher(videoUrl);
-        if (matcher.find()) {
-            return matcher.group(1);
+    /**
+     * Video ids of a playlist or channel, in listing order, from one flat (metadata only, no per-video
+     * requests) yt-dlp listing. A channel URL without a tab lists the channel's uploads.
+     */
+    public List<String> listVideoIds(String collectionUrl) throws IOException, InterruptedException {
+        String listingUrl = YouTubeUrls.listingUrl(collectionUrl);
+        Observation observation = metrics.start("ytdlp", "list");
+        try (Observation.Scope scope = observation.openScope()) {
+            List<String> videoIds = fetchVideoIds(listingUrl);
+            log.info("Listed {} videos in {}", videoIds.size(), listingUrl);
+            return videoIds;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
         }
-        throw new IllegalArgumentException("Invalid YouTube URL: " + videoUrl);
     }
     
-    private String cleanVttContent(String vttFile) throws IOException {
-        System.out.println("Reading VTT file: " + vttFile);
-        
-        ProcessBuilder pb = new ProcessBuilder("cat", vttFile);
-        Process process = pb.start();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        
-        StringBuilder cleaned = new StringBuilder();
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            // Skip VTT header, timestamps, and empty lines
-            if (line.startsWith("WEBVTT") || 
-                line.matches("^\\d{2}:\\d{2}:\\d{2}\\.\\d{3} --> \\d{2}:\\d{2}:\\d{2}\\.\\d{3}$") || 
-                line.trim().isEmpty()) {
-                continue;
+    private List<String> fetchVideoIds(String listingUrl) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(ytDlpBinary, "--flat-playlist", "--print", "id", listingUrl);
+        try (ConcurrencyLimiter.Permit permit = ytDlpConcurrencyLimiter.acquire()) {
+            Process process = pb.start();
+            CompletableFuture<byte[]> stdout;
+            CompletableFuture<byte[]> stderr;
+            boolean completed;
+            try {
+                stdout = readAsync(process.getInputStream());
+                stderr = readAsync(process.getErrorStream());
+                completed = process.waitFor(listTimeoutSeconds, TimeUnit.SECONDS);
+            } finally {
+                destroyIfAlive(process);
+            }
+            if (!completed) {
+                throw new IOException("yt-dlp timed out after " + listTimeoutSeconds + " s listing " + listingUrl);
             }
-            
-            // Skip cue identifiers (numbers)
-            if (line.matches("^\\d+$")) {
-                continue;
+            if (process.exitValue() != 0) {
+                throw new IOException("yt-dlp exited with code " + process.exitValue() + " listing " + listingUrl + ": "
+                    + new String(stderr.join(), StandardCharsets.UTF_8).trim());
             }
-            
-            cleaned.append(line).append(" ");
+            // A video can appear twice in a playlist; analyse it once
+            Set<String> videoIds = new LinkedHashSet<>();
+            for (String line : new String(stdout.join(), StandardCharsets.UTF_8).split("\\R")) {
+                String id = line.trim();
+                if (VIDEO_ID.matcher(id).matches()) {
+                    videoIds.add(id);
+                }
+            }
+            return new ArrayList<>(videoIds);
         }
-        
-        String result = cleaned.toString().trim();
-        System.out.println("Cleaned transcript: " + result.substring(0, Math.min(100, result.length())) + "...");
-        return result;
     }
-} 
\ No newline at end of file
+    
+    // Timed out, interrupted, or failed while waiting: don't leave the child running without its permit
+    private static void destroyIfAlive(Process process) {
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+    }
+    
+    private CompletableFuture<byte[]> readAsync(InputStream stream) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = stream) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                return new byte[0];
+            }
+        }, ytDlpPipeExecutor);
+    }
+    
+    private String extractVideoId(String videoUrl) {
+        return YouTubeUrls.videoId(videoUrl);
+    }
+}
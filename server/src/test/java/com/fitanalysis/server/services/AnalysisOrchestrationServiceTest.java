@@ -0,0 +1,135 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.repository.KnowledgeChunkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Runs video ingestion and the per-section fan-out with yt-dlp, retrieval, embedding and Gemini mocked. */
+class AnalysisOrchestrationServiceTest {
+
+    private final ExecutorService queryPool = Executors.newFixedThreadPool(2);
+    private final GeminiClient geminiClient = mock(GeminiClient.class);
+    private final ConcurrencyLimiter llmLimiter = new ConcurrencyLimiter("llm", 2);
+    private AnalysisOrchestrationService service;
+
+    @BeforeEach
+    void createService() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        EmbeddingCache embeddingCache = mock(EmbeddingCache.class);
+        when(embeddingCache.getEmbedding(anyString())).thenReturn(new float[] {1, 0});
+        ChunkRetrievalService retrieval = mock(ChunkRetrievalService.class);
+        when(retrieval.retrieveForVideo(any(), anyString())).thenReturn(List.of());
+        ContextAssembler assembler = mock(ContextAssembler.class);
+        when(assembler.assemble(anyList(), anyInt())).thenReturn(new ContextAssembler.AssembledContext("", 0, List.of()));
+
+        service = new AnalysisOrchestrationService();
+        ReflectionTestUtils.setField(service, "embeddingCache", embeddingCache);
+        ReflectionTestUtils.setField(service, "chunkRetrievalService", retrieval);
+        ReflectionTestUtils.setField(service, "contextAssembler", assembler);
+        ReflectionTestUtils.setField(service, "geminiClient", geminiClient);
+        ReflectionTestUtils.setField(service, "llmConcurrencyLimiter", llmLimiter);
+        ReflectionTestUtils.setField(service, "analysisQueryExecutor", queryPool);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "queryConcurrency", 2);
+        ReflectionTestUtils.setField(service, "queryTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(service, "contextMaxTokens", 2000);
+    }
+
+    @AfterEach
+    void stopPool() {
+        queryPool.shutdownNow();
+    }
+
+    @Test
+    void videoChunkMetadataStaysValidJsonForAnyTitle(@TempDir Path directory) throws Exception {
+        Path vtt = directory.resolve("abc123.en.vtt");
+        Files.writeString(vtt, "WEBVTT\n\n00:00:01.500 --> 00:00:03.000\nten sets per muscle per week\n");
+        VttTranscriptParser.VttTranscript timeline = VttTranscriptParser.parse(vtt);
+        String title = "\"Ten\" sets \\ week\n(part 2)\t";
+        YtDlpService ytDlp = mock(YtDlpService.class);
+        when(ytDlp.extractVideoInfo(anyString())).thenReturn(Map.of(
+            "title", title, "transcript", timeline.getText(), "transcript_timeline", timeline));
+        BatchEmbeddingService embeddings = mock(BatchEmbeddingService.class);
+        when(embeddings.getEmbeddings(anyList())).thenReturn(List.of(new float[] {1, 0}));
+        ChunkPersistenceService persistence = mock(ChunkPersistenceService.class);
+        ReflectionTestUtils.setField(service, "knowledgeChunkRepository", mock(KnowledgeChunkRepository.class));
+        ReflectionTestUtils.setField(service, "ytDlpService", ytDlp);
+        ReflectionTestUtils.setField(service, "textChunker", new TextChunker(64, 8, 2048));
+        ReflectionTestUtils.setField(service, "batchEmbeddingService", embeddings);
+        ReflectionTestUtils.setField(service, "chunkPersistenceService", persistence);
+        ReflectionTestUtils.setField(service, "cueTimestamps", true);
+
+        ReflectionTestUtils.invokeMethod(service, "ingestVideo", "https://www.youtube.com/watch?v=abc123");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KnowledgeChunk>> saved = ArgumentCaptor.forClass(List.class);
+        verify(persistence).saveChunks(saved.capture());
+        assertThat(saved.getValue()).hasSize(1);
+        JsonNode metadata = new ObjectMapper().readTree(saved.getValue().get(0).getMetadataJson());
+        assertThat(metadata.get("video_title").asText()).isEqualTo(title);
+        assertThat(metadata.get("chunk_index").asInt()).isZero();
+        assertThat(metadata.get("start_ms").asLong()).isEqualTo(1500);
+    }
+
+    @Test
+    void timedOutSectionIsInterruptedAndGivesBackItsSlots() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(geminiClient.generateText(anyString())).thenAnswer(call -> {
+            String prompt = call.getArgument(0);
+            if (prompt.contains(AnalysisSection.WORKOUT_PLAN.getQuery())) {
+                try {
+                    Thread.sleep(30_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new GeminiApiException("Interrupted waiting for Gemini", -1, e);
+                }
+            }
+            return "{\"conclusion\":\"fine\"}";
+        });
+        List<String> incomplete = new ArrayList<>();
+
+        long started = System.nanoTime();
+        Map<String, Object> analysis = ReflectionTestUtils.invokeMethod(
+            service, "runAnalysisSections", "video", incomplete, AnalysisProgressListener.NONE);
+
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started)).isLessThan(10);
+        assertThat(analysis).containsEntry("conclusion", "fine").containsEntry("workout_plan", "");
+        assertThat(incomplete).containsExactly("workout_plan");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        // Both the pool thread and the LLM slot came back: two more calls can hold a slot at once
+        ConcurrencyLimiter.Permit first = llmLimiter.acquire();
+        ConcurrencyLimiter.Permit second = queryPool.submit(llmLimiter::acquire).get(2, TimeUnit.SECONDS);
+        first.close();
+        second.close();
+    }
+}
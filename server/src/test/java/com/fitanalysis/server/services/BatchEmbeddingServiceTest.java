@@ -0,0 +1,126 @@
+package com.fitanalysis.server.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/** Runs BatchEmbeddingService with Gemini mocked and an in-memory stand-in for the embedding cache. */
+class BatchEmbeddingServiceTest {
+
+    private final GeminiClient geminiClient = mock(GeminiClient.class);
+    private final EmbeddingCache embeddingCache = mock(EmbeddingCache.class);
+    private final Map<String, float[]> cached = new HashMap<>();
+    private final List<List<String>> requested = new CopyOnWriteArrayList<>();
+    private BatchEmbeddingService service;
+
+    @BeforeEach
+    void createService() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        when(embeddingCache.getCached(anyList())).thenAnswer(call -> {
+            Map<String, float[]> found = new HashMap<>();
+            for (String text : call.<Collection<String>>getArgument(0)) {
+                if (cached.containsKey(text)) found.put(text, cached.get(text));
+            }
+            return found;
+        });
+        doAnswer(call -> {
+            cached.putAll(call.getArgument(0));
+            return null;
+        }).when(embeddingCache).putAll(anyMap());
+
+        service = new BatchEmbeddingService();
+        ReflectionTestUtils.setField(service, "geminiClient", geminiClient);
+        ReflectionTestUtils.setField(service, "embeddingCache", embeddingCache);
+        ReflectionTestUtils.setField(service, "embeddingConcurrencyLimiter", new ConcurrencyLimiter("embedding", 2));
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "batchSize", 4);
+    }
+
+    @Test
+    void sendsTheMissingTextsInCappedBatchesAndKeepsInputOrder() {
+        when(geminiClient.embedBatchAsync(anyList())).thenAnswer(call -> {
+            List<String> batch = new ArrayList<>(call.getArgument(0));
+            requested.add(batch);
+            return CompletableFuture.supplyAsync(() -> batch.stream().map(BatchEmbeddingServiceTest::vectorOf).toList());
+        });
+        cached.put("text-3", vectorOf("text-3"));
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            texts.add("text-" + i);
+        }
+        texts.add("text-5");
+
+        List<float[]> embeddings = service.getEmbeddings(texts);
+
+        assertThat(embeddings).hasSize(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertThat(embeddings.get(i)).isEqualTo(vectorOf(texts.get(i)));
+        }
+        // 11 distinct uncached texts in batches of at most 4, none sent twice
+        assertThat(requested).hasSize(3).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(4));
+        assertThat(requested.stream().flatMap(List::stream).toList()).hasSize(11).doesNotContain("text-3");
+        assertThat(cached).hasSize(12);
+    }
+
+    @Test
+    void capsTheBatchAtGeminisLimit() {
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        when(geminiClient.embedBatchAsync(anyList())).thenAnswer(call -> {
+            List<String> batch = new ArrayList<>(call.getArgument(0));
+            requested.add(batch);
+            return CompletableFuture.completedFuture(batch.stream().map(BatchEmbeddingServiceTest::vectorOf).toList());
+        });
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            texts.add("text-" + i);
+        }
+
+        service.getEmbeddings(texts);
+
+        assertThat(requested).extracting(List::size).containsExactly(100, 100, 50);
+    }
+
+    @Test
+    void failsWithTheBatchErrorAndCachesOnlyTheBatchesThatArrived() {
+        when(geminiClient.embedBatchAsync(anyList())).thenAnswer(call -> {
+            List<String> batch = new ArrayList<>(call.getArgument(0));
+            requested.add(batch);
+            return requested.size() == 2
+                ? CompletableFuture.failedFuture(new GeminiApiException("Scripted failure", 500, null))
+                : CompletableFuture.completedFuture(batch.stream().map(BatchEmbeddingServiceTest::vectorOf).toList());
+        });
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            texts.add("text-" + i);
+        }
+
+        assertThatThrownBy(() -> service.getEmbeddings(texts))
+            .isInstanceOf(GeminiApiException.class)
+            .hasMessageContaining("Scripted failure");
+        assertThat(cached).containsOnlyKeys(requested.get(0));
+    }
+
+    private static float[] vectorOf(String text) {
+        return new float[] {text.hashCode(), text.length()};
+    }
+}
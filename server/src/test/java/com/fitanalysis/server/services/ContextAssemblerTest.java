@@ -0,0 +1,83 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.SourceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextAssemblerTest {
+
+    private ContextAssembler assembler;
+
+    @BeforeEach
+    void createAssembler() {
+        assembler = new ContextAssembler();
+        ReflectionTestUtils.setField(assembler, "lambda", 0.7);
+        ReflectionTestUtils.setField(assembler, "duplicateSimilarity", 0.95);
+    }
+
+    @Test
+    void staysWithinTheTokenBudget() {
+        Random random = new Random(11);
+        List<ScoredChunk> candidates = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            float[] embedding = {random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat()};
+            candidates.add(scored("chunk-" + i, words(5 + random.nextInt(80)), embedding, random.nextDouble()));
+        }
+
+        for (int budget : new int[] {0, 10, 50, 120, 400}) {
+            ContextAssembler.AssembledContext context = assembler.assemble(candidates, budget);
+
+            assertThat(context.tokens()).isLessThanOrEqualTo(budget);
+            assertThat(TextChunker.estimateTokens(context.text())).isLessThanOrEqualTo(budget);
+        }
+    }
+
+    @Test
+    void dropsNearDuplicatesOfAPickedChunk() {
+        ScoredChunk original = scored("video", "ten sets per muscle per week", new float[] {1, 0, 0}, 0.9);
+        ScoredChunk rollover = scored("video", "ten sets per muscle per week", new float[] {0.99f, 0.01f, 0}, 0.89);
+        ScoredChunk different = scored("paper", "protein timing barely matters", new float[] {0, 1, 0}, 0.5);
+
+        ContextAssembler.AssembledContext context = assembler.assemble(List.of(original, rollover, different), 1_000);
+
+        assertThat(context.chunks()).containsExactly(original.getChunk(), different.getChunk());
+    }
+
+    @Test
+    void picksASmallerChunkWhenTheNextBestDoesNotFit() {
+        ScoredChunk best = scored("a", words(20), new float[] {1, 0, 0}, 0.9);
+        ScoredChunk tooLarge = scored("b", words(200), new float[] {0, 1, 0}, 0.8);
+        ScoredChunk small = scored("c", words(10), new float[] {0, 0, 1}, 0.3);
+        int budget = cost(best) + cost(small) + 2;
+
+        ContextAssembler.AssembledContext context = assembler.assemble(List.of(best, tooLarge, small), budget);
+
+        assertThat(context.chunks()).containsExactly(best.getChunk(), small.getChunk());
+        assertThat(context.tokens()).isEqualTo(cost(best) + cost(small));
+    }
+
+    // Tokens a candidate takes up on its own, prompt labels included
+    private int cost(ScoredChunk scored) {
+        return assembler.assemble(List.of(scored), Integer.MAX_VALUE).tokens();
+    }
+
+    private static ScoredChunk scored(String sourceId, String text, float[] embedding, double similarity) {
+        return new ScoredChunk(new KnowledgeChunk(text, embedding, sourceId, SourceType.VIDEO, "{}"), similarity);
+    }
+
+    private static String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append("volume");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.fitanalysis.server.services;
+
+import com.fitanalysis.server.models.EmbeddingCacheEntry;
+import com.fitanalysis.server.repository.EmbeddingCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Covers the Postgres tier of EmbeddingCache with the repository mocked. */
+class EmbeddingCacheTest {
+
+    private final EmbeddingCacheRepository repository = mock(EmbeddingCacheRepository.class);
+    private EmbeddingCache cache;
+
+    @BeforeEach
+    void createCache() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        cache = new EmbeddingCache();
+        ReflectionTestUtils.setField(cache, "metrics", metrics);
+        ReflectionTestUtils.setField(cache, "embeddingCacheRepository", repository);
+        ReflectionTestUtils.setField(cache, "modelId", "test-model");
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+        ReflectionTestUtils.setField(cache, "persistentEnabled", true);
+    }
+
+    @Test
+    void storesNewEntriesAsInsertsInOneSaveAll() {
+        cache.putAll(embeddings("squat", "bench", "deadlift"));
+
+        assertThat(savedOnce()).hasSize(3).allSatisfy(entry -> assertThat(entry.isNew()).isTrue());
+    }
+
+    @Test
+    void keepsTheRestWhenAnotherWriterStoredSomeKeysFirst() {
+        List<List<EmbeddingCacheEntry>> calls = new ArrayList<>();
+        when(repository.saveAll(anyIterable())).thenAnswer(call -> {
+            List<EmbeddingCacheEntry> entries = new ArrayList<>();
+            call.<Iterable<EmbeddingCacheEntry>>getArgument(0).forEach(entries::add);
+            calls.add(entries);
+            if (calls.size() == 1) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return entries;
+        });
+        when(repository.findAllById(anyIterable())).thenAnswer(call -> {
+            // "bench" was inserted concurrently
+            List<EmbeddingCacheEntry> stored = new ArrayList<>();
+            for (EmbeddingCacheEntry entry : calls.get(0)) {
+                if (entry.getEmbedding()[0] == 2) stored.add(entry);
+            }
+            return stored;
+        });
+
+        cache.putAll(embeddings("squat", "bench", "deadlift"));
+
+        assertThat(calls).hasSize(2);
+        assertThat(calls.get(1)).hasSize(2)
+            .extracting(entry -> entry.getEmbedding()[0]).containsExactlyInAnyOrder(1f, 3f);
+        assertThat(calls.get(1)).allSatisfy(entry -> assertThat(entry.isNew()).isTrue());
+        // Every embedding is still served from memory
+        assertThat(cache.getCached(List.of("squat", "bench", "deadlift"))).hasSize(3);
+    }
+
+    private List<EmbeddingCacheEntry> savedOnce() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<EmbeddingCacheEntry>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository).saveAll(saved.capture());
+        List<EmbeddingCacheEntry> entries = new ArrayList<>();
+        saved.getValue().forEach(entries::add);
+        return entries;
+    }
+
+    // Embedding i + 1 for the i-th text, so entries can be told apart by their first value
+    private static Map<String, float[]> embeddings(String... texts) {
+        Map<String, float[]> embeddings = new LinkedHashMap<>();
+        for (int i = 0; i < texts.length; i++) {
+            embeddings.put(texts[i], new float[] {i + 1, 0});
+        }
+        return embeddings;
+    }
+}
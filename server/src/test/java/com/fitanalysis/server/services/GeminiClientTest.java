@@ -0,0 +1,234 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Runs GeminiClient against a local stub of generateContent that answers from a script of responses. */
+class GeminiClientTest {
+
+    private static final String ANSWER = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+
+    private record Scripted(int status, long delayMillis, String body) {
+        Scripted(int status, long delayMillis) {
+            this(status, delayMillis, null);
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Scripted> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> requestPaths = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> requestBodies = new ConcurrentLinkedQueue<>();
+    private ExecutorService stubThreads;
+    private HttpServer stub;
+    private GeminiClient client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stubThreads = Executors.newCachedThreadPool();
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/", this::answer);
+        stub.setExecutor(stubThreads);
+        stub.start();
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        client = new GeminiClient();
+        ReflectionTestUtils.setField(client, "upstreamHttpClient", HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build());
+        ReflectionTestUtils.setField(client, "metrics", metrics);
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        ReflectionTestUtils.setField(client, "baseUrl", "http://127.0.0.1:" + stub.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "model", "stub");
+        ReflectionTestUtils.setField(client, "deadlineMillis", 10_000L);
+        ReflectionTestUtils.setField(client, "attemptTimeoutMillis", 5_000L);
+        ReflectionTestUtils.setField(client, "maxAttempts", 3);
+        ReflectionTestUtils.setField(client, "backoffMillis", 10L);
+        ReflectionTestUtils.setField(client, "maxBackoffMillis", 50L);
+        ReflectionTestUtils.setField(client, "hedgeAfterMillis", 0L);
+        ReflectionTestUtils.setField(client, "breakerFailureThreshold", 5);
+        ReflectionTestUtils.setField(client, "breakerOpenMillis", 30_000L);
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop(0);
+        stubThreads.shutdownNow();
+    }
+
+    @Test
+    void retriesServerErrorsUntilAnAttemptSucceeds() {
+        client.createCircuitBreaker();
+        script.add(new Scripted(503, 0));
+        script.add(new Scripted(500, 0));
+        script.add(new Scripted(200, 0));
+
+        assertThat(client.generateText("hello")).isEqualTo("ok");
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        client.createCircuitBreaker();
+        script.add(new Scripted(400, 0));
+
+        assertThatThrownBy(() -> client.generateText("hello"))
+            .isInstanceOf(GeminiApiException.class)
+            .satisfies(e -> assertThat(((GeminiApiException) e).getStatusCode()).isEqualTo(400));
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void openBreakerRejectsCallsWithoutSendingThem() {
+        ReflectionTestUtils.setField(client, "maxAttempts", 1);
+        ReflectionTestUtils.setField(client, "breakerFailureThreshold", 2);
+        client.createCircuitBreaker();
+        script.add(new Scripted(500, 0));
+        script.add(new Scripted(500, 0));
+
+        assertThatThrownBy(() -> client.generateText("one")).isInstanceOf(GeminiApiException.class);
+        assertThatThrownBy(() -> client.generateText("two")).isInstanceOf(GeminiApiException.class);
+        assertThatThrownBy(() -> client.generateText("three")).hasMessageContaining("Circuit breaker open");
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void hedgeAnswersForASlowPrimary() {
+        ReflectionTestUtils.setField(client, "hedgeAfterMillis", 100L);
+        client.createCircuitBreaker();
+        script.add(new Scripted(200, 3_000));
+        script.add(new Scripted(200, 0));
+
+        long started = System.nanoTime();
+        assertThat(client.generateText("hello")).isEqualTo("ok");
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(2_000));
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void halfOpenProbeIsNotHedged() throws InterruptedException {
+        ReflectionTestUtils.setField(client, "maxAttempts", 1);
+        ReflectionTestUtils.setField(client, "breakerFailureThreshold", 1);
+        ReflectionTestUtils.setField(client, "breakerOpenMillis", 100L);
+        ReflectionTestUtils.setField(client, "hedgeAfterMillis", 50L);
+        client.createCircuitBreaker();
+        script.add(new Scripted(500, 0));
+        assertThatThrownBy(() -> client.generateText("opens")).isInstanceOf(GeminiApiException.class);
+
+        // The first call may itself have been hedged while the client connected; count the probe alone
+        Thread.sleep(150);
+        int before = requests.get();
+        script.clear();
+        script.add(new Scripted(200, 400));
+        script.add(new Scripted(200, 0));
+        assertThat(client.generateText("probe")).isEqualTo("ok");
+        assertThat(requests).hasValue(before + 1);
+    }
+
+    @Test
+    void interruptAbandonsAWaitingCallWithoutRetrying() throws Exception {
+        client.createCircuitBreaker();
+        script.add(new Scripted(200, 3_000));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean stillInterrupted = new AtomicBoolean();
+        Thread caller = new Thread(() -> {
+            try {
+                client.generateText("hello");
+            } catch (GeminiApiException e) {
+                failure.set(e);
+                stillInterrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+
+        long started = System.nanoTime();
+        caller.start();
+        Thread.sleep(200);
+        caller.interrupt();
+        caller.join(2_000);
+
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(2_000));
+        assertThat(failure.get()).hasMessageContaining("Interrupted");
+        assertThat(stillInterrupted).isTrue();
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void embedsABatchInOneRequest() throws Exception {
+        ReflectionTestUtils.setField(client, "embeddingModel", "stub-embedding");
+        client.createCircuitBreaker();
+        script.add(new Scripted(200, 0, "{\"embeddings\":[{\"values\":[0.5,1]},{\"values\":[-1,0.25]}]}"));
+
+        List<float[]> vectors = client.embedBatchAsync(List.of("squat", "bench")).get(5, TimeUnit.SECONDS);
+
+        assertThat(vectors).containsExactly(new float[] {0.5f, 1}, new float[] {-1, 0.25f});
+        assertThat(requests).hasValue(1);
+        assertThat(requestPaths).containsExactly("/models/stub-embedding:batchEmbedContents");
+        JsonNode request = new ObjectMapper().readTree(requestBodies.peek());
+        assertThat(request.path("requests")).hasSize(2);
+        assertThat(request.path("requests").path(1).path("model").asText()).isEqualTo("models/stub-embedding");
+        assertThat(request.path("requests").path(1).path("content").path("parts").path(0).path("text").asText()).isEqualTo("bench");
+    }
+
+    @Test
+    void rejectsABatchResponseWithTheWrongNumberOfEmbeddings() {
+        client.createCircuitBreaker();
+        script.add(new Scripted(200, 0, "{\"embeddings\":[{\"values\":[1,0]}]}"));
+
+        assertThatThrownBy(() -> client.embedBatchAsync(List.of("squat", "bench")).join())
+            .hasCauseInstanceOf(GeminiApiException.class)
+            .hasMessageContaining("Expected 2 embeddings but got 1");
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        Scripted next = script.poll();
+        try (exchange) {
+            requestPaths.add(exchange.getRequestURI().getPath());
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            if (next == null) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            if (next.delayMillis() > 0) {
+                Thread.sleep(next.delayMillis());
+            }
+            String answer = next.body() != null ? next.body() : next.status() == 200 ? ANSWER : "{\"error\":\"scripted\"}";
+            byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(next.status(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client cancelled this exchange (the losing side of a hedge)
+        }
+    }
+}
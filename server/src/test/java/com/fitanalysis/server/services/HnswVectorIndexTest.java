@@ -0,0 +1,57 @@
+package com.fitanalysis.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswVectorIndexTest {
+
+    @Test
+    void samplesOnlyLiveVectors() {
+        HnswVectorIndex index = new HnswVectorIndex(8, 64, 64);
+        // Vector i points along axis i, so a sampled vector names the node it came from
+        int count = 50;
+        for (int i = 0; i < count; i++) {
+            index.add(i, axis(i, count));
+        }
+        // Under a fifth of the nodes, so they stay as tombstones rather than being compacted away
+        Set<Integer> removed = Set.of(0, 7, 21, 22, 23, 48, 49);
+        removed.forEach(index::remove);
+
+        List<float[]> sample = index.sampleLiveVectors(500, new SplittableRandom(3));
+
+        assertThat(sample).hasSize(500);
+        Set<Integer> seen = new HashSet<>();
+        for (float[] vector : sample) {
+            seen.add(axisOf(vector));
+        }
+        assertThat(seen).doesNotContainAnyElementsOf(removed).hasSize(count - removed.size());
+    }
+
+    @Test
+    void samplesNothingFromAnEmptiedIndex() {
+        HnswVectorIndex index = new HnswVectorIndex(8, 64, 64);
+        index.add(1, new float[] {1, 0});
+        index.remove(1);
+
+        assertThat(index.sampleLiveVectors(10, new SplittableRandom(3))).isEmpty();
+    }
+
+    private static float[] axis(int i, int dimension) {
+        float[] vector = new float[dimension];
+        vector[i] = 1;
+        return vector;
+    }
+
+    private static int axisOf(float[] vector) {
+        for (int i = 0; i < vector.length; i++) {
+            if (vector[i] > 0.5f) return i;
+        }
+        throw new AssertionError("not an axis vector");
+    }
+}
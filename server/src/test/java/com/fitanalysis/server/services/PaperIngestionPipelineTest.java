@@ -0,0 +1,182 @@
+package com.fitanalysis.server.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitanalysis.server.models.KnowledgeChunk;
+import com.fitanalysis.server.models.PaperManifestEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Runs the pipeline over generated PDFs with the real extractor and chunker, and persistence mocked. */
+class PaperIngestionPipelineTest {
+
+    private static final int BATCH_SIZE = 4;
+
+    @TempDir
+    Path directory;
+
+    private final List<ExecutorService> pools = new ArrayList<>();
+    private final BatchEmbeddingService embeddings = mock(BatchEmbeddingService.class);
+    private final ChunkPersistenceService persistence = mock(ChunkPersistenceService.class);
+    private PaperIngestionPipeline pipeline;
+
+    @BeforeEach
+    void createPipeline() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        PdfTextExtractor extractor = new PdfTextExtractor();
+        ReflectionTestUtils.setField(extractor, "pdfPageExecutor", pool(2));
+        ReflectionTestUtils.setField(extractor, "parallelPageThreshold", 200);
+        ReflectionTestUtils.setField(extractor, "pagesPerRange", 32);
+        ReflectionTestUtils.setField(extractor, "parallelWindow", 2);
+
+        pipeline = new PaperIngestionPipeline();
+        ReflectionTestUtils.setField(pipeline, "paperManifest", mock(PaperManifest.class));
+        ReflectionTestUtils.setField(pipeline, "pdfTextExtractor", extractor);
+        ReflectionTestUtils.setField(pipeline, "textChunker", new TextChunker(32, 4, 2048));
+        ReflectionTestUtils.setField(pipeline, "batchEmbeddingService", embeddings);
+        ReflectionTestUtils.setField(pipeline, "chunkPersistenceService", persistence);
+        ReflectionTestUtils.setField(pipeline, "metrics", metrics);
+        ReflectionTestUtils.setField(pipeline, "ingestExtractionExecutor", pool(1));
+        ReflectionTestUtils.setField(pipeline, "ingestEmbeddingExecutor", pool(2));
+        ReflectionTestUtils.setField(pipeline, "ingestPersistenceExecutor", pool(1));
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "extractThreads", 1);
+        ReflectionTestUtils.setField(pipeline, "embedThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "persistThreads", 1);
+        ReflectionTestUtils.setField(pipeline, "chunkBatchSize", BATCH_SIZE);
+    }
+
+    @AfterEach
+    void stopPools() {
+        pools.forEach(ExecutorService::shutdownNow);
+    }
+
+    @Test
+    void savesChunksInBatchesAndRecordsThePaperAfterTheLastOne() throws Exception {
+        Path pdf = writePaper(30);
+        when(embeddings.getEmbeddings(anyList())).thenAnswer(call -> vectors(call.getArgument(0)));
+
+        pipeline.run(directory);
+
+        String sourceId = "paper:" + PaperManifest.hash(pdf);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KnowledgeChunk>> saved = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(persistence);
+        order.verify(persistence).deleteChunks(sourceId);
+        order.verify(persistence, atLeast(5)).saveChunks(saved.capture());
+        order.verify(persistence).replaceChunks(anyList(), eq(List.of()), any(PaperManifestEntry.class));
+
+        ObjectMapper json = new ObjectMapper();
+        List<Integer> chunkIndexes = new ArrayList<>();
+        for (List<KnowledgeChunk> batch : saved.getAllValues()) {
+            assertThat(batch).hasSizeBetween(1, BATCH_SIZE);
+            for (KnowledgeChunk chunk : batch) {
+                assertThat(chunk.getSourceId()).isEqualTo(sourceId);
+                chunkIndexes.add(json.readTree(chunk.getMetadataJson()).get("chunk_index").asInt());
+            }
+        }
+        assertThat(chunkIndexes).containsExactlyInAnyOrderElementsOf(
+            IntStream.range(0, chunkIndexes.size()).boxed().toList());
+    }
+
+    @Test
+    void dropsTheSavedBatchesOfAPaperWhenOneBatchFails() throws Exception {
+        Path pdf = writePaper(30);
+        AtomicInteger calls = new AtomicInteger();
+        when(embeddings.getEmbeddings(anyList())).thenAnswer(call -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new GeminiApiException("Scripted failure", 500, null);
+            }
+            return vectors(call.getArgument(0));
+        });
+
+        pipeline.run(directory);
+
+        String sourceId = "paper:" + PaperManifest.hash(pdf);
+        verify(persistence, atLeast(1)).saveChunks(anyList());
+        verify(persistence, never()).replaceChunks(anyList(), anyList(), any());
+        // Once before extraction, once when the failed paper is given up
+        verify(persistence, times(2)).deleteChunks(sourceId);
+    }
+
+    @Test
+    void recordsAPaperWithoutTextWithoutSavingChunks() throws Exception {
+        List<List<String>> pages = new ArrayList<>();
+        pages.add(null);
+        pages.add(null);
+        TestPdfs.write(directory.resolve("scanned.pdf"), pages);
+
+        pipeline.run(directory);
+
+        verify(persistence, never()).saveChunks(anyList());
+        verify(persistence).replaceChunks(anyList(), eq(List.of()), any(PaperManifestEntry.class));
+    }
+
+    @Test
+    void chunkMetadataStaysValidJsonForAnyFileName() throws Exception {
+        String fileName = "Schoenfeld \"volume\" \\ meta\tanalysis.pdf";
+        TestPdfs.write(directory.resolve(fileName), List.of(TestPdfs.page(1)));
+        when(embeddings.getEmbeddings(anyList())).thenAnswer(call -> vectors(call.getArgument(0)));
+
+        pipeline.run(directory);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<KnowledgeChunk>> saved = ArgumentCaptor.forClass(List.class);
+        verify(persistence, atLeast(1)).saveChunks(saved.capture());
+        ObjectMapper json = new ObjectMapper();
+        for (KnowledgeChunk chunk : saved.getValue()) {
+            assertThat(json.readTree(chunk.getMetadataJson()).get("file_name").asText()).isEqualTo(fileName);
+            assertThat(json.readTree(chunk.getMetadataJson()).get("page").asInt()).isEqualTo(1);
+        }
+    }
+
+    private Path writePaper(int pageCount) throws Exception {
+        List<List<String>> pages = new ArrayList<>();
+        for (int page = 1; page <= pageCount; page++) {
+            pages.add(TestPdfs.page(page));
+        }
+        return TestPdfs.write(directory.resolve("volume.pdf"), pages);
+    }
+
+    private static List<float[]> vectors(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            vectors.add(new float[] {i, 1});
+        }
+        return vectors;
+    }
+
+    private ExecutorService pool(int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,76 @@
+package com.fitanalysis.server.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfTextExtractorTest {
+
+    @TempDir
+    Path directory;
+
+    private final ExecutorService pageThreads = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void stopPool() {
+        pageThreads.shutdownNow();
+    }
+
+    @Test
+    void streamsPagesInOrderAndJoinsHyphenatedWords() throws Exception {
+        Path pdf = TestPdfs.write(directory.resolve("paper.pdf"), Arrays.asList(
+            List.of("Hypertrophy depends on train-", "ing volume."),
+            null,
+            TestPdfs.page(3)));
+        List<Integer> pageNumbers = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+
+        extractor(1000, 8, 4).extractPages(pdf, (pageNumber, text) -> {
+            pageNumbers.add(pageNumber);
+            texts.add(text);
+        });
+
+        assertThat(pageNumbers).containsExactly(1, 2, 3);
+        assertThat(texts.get(0)).isEqualTo("Hypertrophy depends on training volume.");
+        assertThat(texts.get(1)).isEmpty();
+        assertThat(texts.get(2)).startsWith("Page 3 reports").doesNotContain("\n");
+    }
+
+    @Test
+    void parallelRangesDeliverTheSamePagesInOrder() throws Exception {
+        List<List<String>> pages = new ArrayList<>();
+        for (int page = 1; page <= 23; page++) {
+            pages.add(page % 10 == 0 ? null : TestPdfs.page(page));
+        }
+        Path pdf = TestPdfs.write(directory.resolve("long.pdf"), pages);
+
+        List<String> sequential = new ArrayList<>();
+        extractor(1000, 4, 3).extractPages(pdf, (pageNumber, text) -> sequential.add(pageNumber + ":" + text));
+        List<String> parallel = new ArrayList<>();
+        PdfTextExtractor parallelExtractor = extractor(10, 4, 3);
+        parallelExtractor.extractPages(pdf, (pageNumber, text) -> parallel.add(pageNumber + ":" + text));
+
+        assertThat(parallel).hasSize(23).containsExactlyElementsOf(sequential);
+        assertThat(parallel.get(9)).isEqualTo("10:");
+        assertThat(parallelExtractor.getStats().pagesWithoutText()).isEqualTo(2);
+    }
+
+    private PdfTextExtractor extractor(int parallelPageThreshold, int pagesPerRange, int parallelWindow) {
+        PdfTextExtractor extractor = new PdfTextExtractor();
+        ReflectionTestUtils.setField(extractor, "pdfPageExecutor", pageThreads);
+        ReflectionTestUtils.setField(extractor, "parallelPageThreshold", parallelPageThreshold);
+        ReflectionTestUtils.setField(extractor, "pagesPerRange", pagesPerRange);
+        ReflectionTestUtils.setField(extractor, "parallelWindow", parallelWindow);
+        return extractor;
+    }
+}
@@ -0,0 +1,50 @@
+package com.fitanalysis.server.services;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Writes small text PDFs for the extraction tests; a null page has no content stream at all. */
+final class TestPdfs {
+
+    private TestPdfs() {}
+
+    static Path write(Path file, List<List<String>> pages) throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        try (PDDocument document = new PDDocument()) {
+            for (List<String> lines : pages) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                if (lines == null) {
+                    continue;
+                }
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(72, 720);
+                    for (String line : lines) {
+                        content.showText(line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    static List<String> page(int number) {
+        return List.of(
+            "Page " + number + " reports a trial of resistance training volume.",
+            "Participants trained each muscle group with ten to twenty sets per week.",
+            "Muscle thickness increased more with higher volume in every group.");
+    }
+}
@@ -0,0 +1,153 @@
+package com.fitanalysis.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextChunkerTest {
+
+    private static final String[] WORDS = {
+        "squat", "hypertrophy", "volume", "sets", "per", "week", "the", "a", "of", "muscle", "protein",
+        "synthesis", "e.g", "RPE", "1RM", "don't", "(n=24)", "\"failure\"", "https://doi.org/10.1519/JSC.0000000000001764"
+    };
+    private static final String[] PUNCTUATION = {".", "!", "?", ",", ";", "?!?!?!", "...", ".\")]", "!!!!!!!!!!!!!!!!!!!!!!!!"};
+
+    private record Span(int start, int end, int tokens) {}
+
+    @Test
+    void chunksNeverExceedTheTokenBudget() {
+        TextChunker chunker = new TextChunker(16, 4, 2048);
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            String text = randomText(random, 50 + random.nextInt(400));
+            for (Span span : spans(chunker, text)) {
+                assertThat(span.tokens()).as("reported tokens in round %d", round).isLessThanOrEqualTo(16);
+                assertThat(TextChunker.estimateTokens(text.substring(span.start(), span.end())))
+                    .as("estimated tokens of %s", text.substring(span.start(), span.end()))
+                    .isLessThanOrEqualTo(16);
+            }
+        }
+    }
+
+    @Test
+    void consecutiveChunksOverlapByAtMostTheOverlapBudget() {
+        TextChunker chunker = new TextChunker(32, 8, 2048);
+        String text = randomText(new Random(7), 600);
+
+        List<Span> spans = spans(chunker, text);
+
+        assertThat(spans).hasSizeGreaterThan(5);
+        for (int i = 1; i < spans.size(); i++) {
+            Span previous = spans.get(i - 1);
+            Span current = spans.get(i);
+            assertThat(current.start()).isGreaterThan(previous.start());
+            int overlapEnd = Math.max(current.start(), previous.end());
+            assertThat(TextChunker.estimateTokens(text.substring(current.start(), overlapEnd))).isLessThanOrEqualTo(8);
+        }
+    }
+
+    @Test
+    void cutsUnpunctuatedTextBetweenWords() {
+        TextChunker chunker = new TextChunker(16, 4, 2048);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append(i % 7 == 0 ? "so" : "yeah like the").append(' ');
+        }
+        String transcript = text.toString().trim();
+
+        List<Span> spans = spans(chunker, transcript);
+
+        assertThat(spans).hasSizeGreaterThan(10);
+        int covered = 0;
+        for (Span span : spans) {
+            assertThat(span.tokens()).isLessThanOrEqualTo(16);
+            assertThat(span.start() == 0 || transcript.charAt(span.start() - 1) == ' ').isTrue();
+            assertThat(span.end() == transcript.length() || transcript.charAt(span.end()) == ' ').isTrue();
+            assertThat(span.start()).isLessThanOrEqualTo(covered);
+            covered = span.end();
+        }
+        assertThat(covered).isEqualTo(transcript.length());
+    }
+
+    @Test
+    void splitsAWordLongerThanAPiece() {
+        TextChunker chunker = new TextChunker(16, 4, 2048);
+        String url = "https://example.com/" + "a1b2c3d4".repeat(40);
+        String text = "Full data is at " + url + " for anyone curious.";
+
+        List<Span> spans = spans(chunker, text);
+
+        int covered = 0;
+        for (Span span : spans) {
+            assertThat(span.tokens()).isLessThanOrEqualTo(16);
+            assertThat(span.start()).isLessThanOrEqualTo(covered);
+            covered = Math.max(covered, span.end());
+        }
+        assertThat(covered).isEqualTo(text.length());
+    }
+
+    @Test
+    void builderMatchesForEachChunkOnTheJoinedText() {
+        TextChunker chunker = new TextChunker(24, 6, 2048);
+        Random random = new Random(3);
+        List<String> pages = new ArrayList<>();
+        for (int page = 0; page < 12; page++) {
+            pages.add(randomText(random, 20 + random.nextInt(120)));
+        }
+        String joined = String.join(" ", pages);
+
+        TextChunker.ChunkBuilder builder = chunker.builder();
+        List<TextChunker.Chunk> built = new ArrayList<>();
+        for (int page = 0; page < pages.size(); page++) {
+            builder.append(pages.get(page), page + 1);
+            if (page % 3 == 0) {
+                built.addAll(builder.drain());
+            }
+        }
+        built.addAll(builder.finish());
+
+        List<Span> expected = spans(chunker, joined);
+        assertThat(built).extracting(TextChunker.Chunk::text)
+            .containsExactlyElementsOf(expected.stream().map(s -> joined.substring(s.start(), s.end())).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(built.get(i).page()).isEqualTo(pageAt(pages, expected.get(i).start()));
+        }
+    }
+
+    private static List<Span> spans(TextChunker chunker, String text) {
+        List<Span> spans = new ArrayList<>();
+        chunker.forEachChunk(text, (start, end, tokens) -> spans.add(new Span(start, end, tokens)));
+        return spans;
+    }
+
+    // 1-based page holding offset of the pages joined by single spaces
+    private static int pageAt(List<String> pages, int offset) {
+        int pageStart = 0;
+        for (int page = 0; page < pages.size(); page++) {
+            int next = pageStart + pages.get(page).length() + 1;
+            if (offset < next) {
+                return page + 1;
+            }
+            pageStart = next;
+        }
+        return pages.size();
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(6) == 0) {
+                text.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+        }
+        return text.toString();
+    }
+}
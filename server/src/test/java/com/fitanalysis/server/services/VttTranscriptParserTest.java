@@ -0,0 +1,95 @@
+package com.fitanalysis.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VttTranscriptParserTest {
+
+    @Test
+    void dropsRollingDuplicatesOfAutoCaptions() throws Exception {
+        Path vtt = fixture("auto-captions-volume.en.vtt");
+
+        VttTranscriptParser.VttTranscript transcript = VttTranscriptParser.parse(vtt);
+
+        assertThat(transcript.getText()).isEqualTo(
+            "hey everyone welcome back to the channel "
+            + "today we're looking at how many sets you "
+            + "actually need per muscle per week to grow "
+            + "there's a 2017 meta-analysis by Schoenfeld "
+            + "that pooled fifteen studies on weekly volume "
+            + "and found a dose response relationship "
+            + "more sets meant more growth up to a point "
+            + "people doing ten or more sets per week "
+            + "grew noticeably more than people doing under five "
+            + "so that's where the ten sets number comes from "
+            + "but it isn't a hard ceiling "
+            + "a lot of the later studies pushed volume higher "
+            + "and the returns got smaller and smaller "
+            + "so if you're short on time "
+            + "four to six hard sets still gets you most of the way");
+        // Timing tags and the rolled-over copies are most of an auto-caption file
+        double ratio = (double) transcript.getText().length() / Files.size(vtt);
+        assertThat(ratio).isLessThan(0.15);
+    }
+
+    @Test
+    void keepsShortLinesThatAreGenuinelyRepeated() throws Exception {
+        VttTranscriptParser.VttTranscript transcript = VttTranscriptParser.parse(fixture("auto-captions-repeats.en.vtt"));
+
+        assertThat(transcript.getText()).isEqualTo(
+            "so what do you think about training to failure "
+            + "yeah yeah "
+            + "I mean it depends on the exercise "
+            + "okay right okay "
+            + "so for something like a squat "
+            + "probably leave a rep or two in the tank "
+            + "yeah that makes sense");
+    }
+
+    @Test
+    void mapsTextOffsetsToCueStartTimes() throws Exception {
+        VttTranscriptParser.VttTranscript transcript = VttTranscriptParser.parse(fixture("auto-captions-volume.en.vtt"));
+
+        int secondLine = transcript.getText().indexOf("today we're");
+        assertThat(transcript.startMillisAt(0)).isEqualTo(160);
+        assertThat(transcript.startMillisAt(secondLine)).isEqualTo(transcript.startMillisAt(secondLine + 5));
+        assertThat(transcript.startMillisAt(secondLine)).isGreaterThan(transcript.startMillisAt(secondLine - 1));
+    }
+
+    @Test
+    void keepsRepeatedCuesOfManualCaptions() throws IOException {
+        String vtt = """
+            WEBVTT
+
+            1
+            00:00:01.000 --> 00:00:02.000
+            Yeah.
+
+            2
+            00:00:02.000 --> 00:00:03.000
+            Yeah.
+
+            NOTE speaker change
+
+            3
+            00:00:03.000 --> 00:00:04.500
+            <i>Rest &amp; recover</i>
+            """;
+
+        VttTranscriptParser.VttTranscript transcript = VttTranscriptParser.parse(new StringReader(vtt));
+
+        assertThat(transcript.getText()).isEqualTo("Yeah. Yeah. Rest & recover");
+        assertThat(transcript.startMillisAt(transcript.getText().indexOf("Rest"))).isEqualTo(3000);
+    }
+
+    private static Path fixture(String name) throws URISyntaxException {
+        return Path.of(VttTranscriptParserTest.class.getResource("/vtt/" + name).toURI());
+    }
+}
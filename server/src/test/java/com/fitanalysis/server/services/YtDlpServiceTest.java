@@ -0,0 +1,158 @@
+package com.fitanalysis.server.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Runs YtDlpService against a shell script standing in for the yt-dlp binary. */
+@DisabledOnOs(OS.WINDOWS)
+class YtDlpServiceTest {
+
+    private static final String VIDEO_URL = "https://www.youtube.com/watch?v=abc123";
+    private static final String METADATA = "{\"title\":\"Ten sets a week\",\"uploader\":\"Lifting Lab\"}";
+    private static final String VTT = "WEBVTT\n\n00:00:00.000 --> 00:00:02.000\nten sets per muscle per week\n";
+
+    @TempDir
+    Path directory;
+
+    private final ExecutorService pipes = Executors.newFixedThreadPool(2);
+    private YtDlpService service;
+    private Path runs;
+
+    @BeforeEach
+    void createService() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        ReflectionTestUtils.setField(metrics, "observationRegistry", ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        service = new YtDlpService(16);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "ytDlpConcurrencyLimiter", new ConcurrencyLimiter("ytdlp", 1));
+        ReflectionTestUtils.setField(service, "ytDlpPipeExecutor", pipes);
+        ReflectionTestUtils.setField(service, "outputDir", directory.toString());
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 5L);
+        ReflectionTestUtils.setField(service, "listTimeoutSeconds", 5L);
+        runs = directory.resolve("runs");
+    }
+
+    @AfterEach
+    void stopPipes() {
+        pipes.shutdownNow();
+    }
+
+    @Test
+    void readsMetadataAndSubtitlesAndCachesACompleteRun() throws Exception {
+        stub("echo '" + METADATA + "'\n" + writeSubtitles() + "exit 0\n");
+
+        Map<String, Object> info = service.extractVideoInfo(VIDEO_URL);
+        Map<String, Object> again = service.extractVideoInfo(VIDEO_URL);
+
+        assertThat(info).containsEntry("title", "Ten sets a week").containsEntry("channel", "Lifting Lab")
+            .containsEntry("transcript", "ten sets per muscle per week");
+        assertThat(again).isEqualTo(info);
+        assertThat(runCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsMetadataFromAFailedRunButDoesNotCacheIt() throws Exception {
+        stub("echo '" + METADATA + "'\necho 'ERROR: subtitles unavailable' >&2\nexit 1\n");
+
+        Map<String, Object> info = service.extractVideoInfo(VIDEO_URL);
+        service.extractVideoInfo(VIDEO_URL);
+
+        assertThat(info).containsEntry("title", "Ten sets a week").containsEntry("transcript", "");
+        assertThat(runCount()).isEqualTo(2);
+    }
+
+    @Test
+    void failsWhenTheRunPrintsNoMetadata() throws Exception {
+        stub("echo 'ERROR: Video unavailable' >&2\nexit 1\n");
+
+        assertThatThrownBy(() -> service.extractVideoInfo(VIDEO_URL))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("exited with code 1")
+            .hasMessageContaining("Video unavailable");
+    }
+
+    @Test
+    void timesOutAHangingRunAndDoesNotCacheIt() throws Exception {
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 1L);
+        stub("echo '" + METADATA + "'\nexec sleep 30\n");
+
+        assertThatThrownBy(() -> service.extractVideoInfo(VIDEO_URL))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("timed out");
+        ReflectionTestUtils.setField(service, "timeoutSeconds", 5L);
+        stub("echo '" + METADATA + "'\nexit 0\n");
+        assertThat(service.extractVideoInfo(VIDEO_URL)).containsEntry("title", "Ten sets a week");
+        assertThat(runCount()).isEqualTo(2);
+    }
+
+    @Test
+    void interruptKillsTheRunningProcess() throws Exception {
+        Path pid = directory.resolve("pid");
+        stub("echo $$ > '" + pid + "'\nexec sleep 30\n");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                service.extractVideoInfo(VIDEO_URL);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+
+        caller.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(pid) || Files.readString(pid).isBlank()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+        ProcessHandle child = ProcessHandle.of(Long.parseLong(Files.readString(pid).trim())).orElseThrow();
+        caller.interrupt();
+        caller.join(2_000);
+
+        assertThat(failure.get()).isInstanceOf(InterruptedException.class);
+        assertThat(child.onExit().get(2, TimeUnit.SECONDS).isAlive()).isFalse();
+    }
+
+    @Test
+    void listsEachVideoIdOnce() throws Exception {
+        stub("printf 'abc123\\nxyz_789\\nabc123\\nnot an id\\n'\n");
+
+        assertThat(service.listVideoIds("https://www.youtube.com/playlist?list=PL123"))
+            .containsExactly("abc123", "xyz_789");
+    }
+
+    // Writes the script yt-dlp is replaced with; every run appends a line to the runs file first
+    private void stub(String body) throws IOException {
+        Path script = directory.resolve("yt-dlp-" + System.nanoTime() + ".sh");
+        Files.writeString(script, "#!/bin/sh\necho run >> '" + runs + "'\n" + body);
+        script.toFile().setExecutable(true);
+        ReflectionTestUtils.setField(service, "ytDlpBinary", script.toString());
+    }
+
+    private String writeSubtitles() {
+        return "cat > '" + directory.resolve("abc123.en.vtt") + "' <<'EOF'\n" + VTT + "EOF\n";
+    }
+
+    private long runCount() throws IOException {
+        return Files.exists(runs) ? Files.readAllLines(runs).size() : 0;
+    }
+}